@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import org.joml.Matrix4fc;
+import org.overrun.glutils.internal.QuadIndexBuffer;
+import org.overrun.glutils.internal.TesselatorProgramManager;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL31.*;
+
+/**
+ * Immutable geometry baked from a tesselator.
+ * <p>
+ * The geometry owns its vertex array and buffers and keeps no client-side
+ * copy of the data.
+ * </p>
+ *
+ * @author squid233
+ * @see Tesselator3#bake()
+ * @since 1.6.0
+ */
+public class BakedGeometry {
+    private final Vao vao = new Vao();
+    private final Vbo vbo = new Vbo(GL_ARRAY_BUFFER);
+    private Vbo ebo;
+    private final VertexFormat format;
+    private final int primitive;
+    private final int vertexCount;
+    private int indexCount;
+    private int indexType;
+
+    BakedGeometry(VertexFormat format,
+                  int primitive,
+                  int vertexCount,
+                  ByteBuffer vertices) {
+        this.format = format;
+        this.primitive = primitive;
+        this.vertexCount = vertexCount;
+        vao.bind();
+        vbo.bind();
+        vbo.data(vertices, GL_STATIC_DRAW);
+        format.enable();
+        vao.unbind();
+        vbo.unbind();
+    }
+
+    void indices(int[] indices) {
+        ebo = new Vbo(GL_ELEMENT_ARRAY_BUFFER);
+        vao.bind();
+        ebo.bind();
+        ebo.data(indices, GL_STATIC_DRAW);
+        vao.unbind();
+        indexCount = indices.length;
+        indexType = GL_UNSIGNED_INT;
+    }
+
+    void quads() {
+        vao.bind();
+        QuadIndexBuffer.bind(vertexCount);
+        vao.unbind();
+        indexCount = QuadIndexBuffer.count(vertexCount);
+        indexType = QuadIndexBuffer.type(vertexCount);
+    }
+
+    /**
+     * Draw with current program.
+     */
+    public void render() {
+        vao.bind();
+        if (indexType == 0) {
+            glDrawArrays(primitive, 0, vertexCount);
+        } else {
+            glDrawElements(primitive, indexCount, indexType, 0);
+        }
+        vao.unbind();
+    }
+
+    /**
+     * Draw once for each instance with current program.
+     *
+     * @param instances The instances.
+     */
+    public void renderInstanced(InstanceBuffer instances) {
+        vao.bind();
+        instances.enable();
+        if (indexType == 0) {
+            glDrawArraysInstanced(primitive,
+                0,
+                vertexCount,
+                instances.getCount());
+        } else {
+            glDrawElementsInstanced(primitive,
+                indexCount,
+                indexType,
+                0,
+                instances.getCount());
+        }
+        instances.disable();
+        vao.unbind();
+    }
+
+    /**
+     * Draw with the tesselator program for the format.
+     *
+     * @param mvp The model view projection matrix.
+     */
+    public void draw(Matrix4fc mvp) {
+        GLProgram program = TesselatorProgramManager.putOrGet(format.hasColor(),
+            format.hasTexCoord());
+        program.bind();
+        program.setUniformMat4("mvp", mvp);
+        render();
+        program.unbind();
+    }
+
+    /**
+     * Draw once for each instance with the tesselator program for the format.
+     *
+     * @param viewProj  The view projection matrix.
+     * @param instances The instances.
+     */
+    public void drawInstanced(Matrix4fc viewProj, InstanceBuffer instances) {
+        GLProgram program = TesselatorProgramManager.putOrGet(format.hasColor(),
+            format.hasTexCoord(),
+            true);
+        program.bind();
+        program.setUniformMat4("mvp", viewProj);
+        // the program always reads the tint
+        if (!instances.hasTint()) {
+            glVertexAttrib4f(InstanceBuffer.TINT_INDEX, 1, 1, 1, 1);
+        }
+        renderInstanced(instances);
+        program.unbind();
+    }
+
+    public VertexFormat getFormat() {
+        return format;
+    }
+
+    public int getPrimitive() {
+        return primitive;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Get the index count.
+     *
+     * @return the index count, or 0 if drawn without indices
+     */
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    /**
+     * Free the buffers.
+     * <p>
+     * Geometry baked in quad mode uses the shared quad index buffer, which is
+     * freed by {@link IndexedTesselator3#freeQuadIndices()}.
+     * </p>
+     */
+    public void free() {
+        vbo.free();
+        if (ebo != null) {
+            ebo.free();
+        }
+        vao.free();
+    }
+}
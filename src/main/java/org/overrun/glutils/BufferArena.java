@@ -0,0 +1,439 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import org.overrun.glutils.mesh.BaseMesh;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Shared vertex and index buffers that many meshes are sub-allocated from.
+ * <p>
+ * All slices share one vao, so drawing them only binds it once. Each slice
+ * is drawn with {@code glDrawElementsBaseVertex}; its indices start at 0.
+ * When a buffer is full, it is defragmented if that makes enough room,
+ * otherwise it grows to double size.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class BufferArena implements AutoCloseable {
+    private final VertexFormat format;
+    private final int usage;
+    private final int vao;
+    private final RangeAllocator vertexAllocator;
+    private final RangeAllocator indexAllocator;
+    private int vbo;
+    private int ibo;
+
+    /**
+     * A mesh in the arena.
+     */
+    public static class Slice {
+        private final RangeAllocator.Range vertices;
+        private final RangeAllocator.Range indices;
+
+        private Slice(RangeAllocator.Range vertices,
+                      RangeAllocator.Range indices) {
+            this.vertices = vertices;
+            this.indices = indices;
+        }
+
+        /**
+         * Draw this slice. The vao of the arena must be bound.
+         *
+         * @param primitive the primitive
+         */
+        public void render(int primitive) {
+            glDrawElementsBaseVertex(primitive,
+                indices.getSize(),
+                GL_UNSIGNED_INT,
+                indices.getOffset() * 4L,
+                vertices.getOffset());
+        }
+
+        /**
+         * get the first vertex in the vertex buffer
+         *
+         * @return the base vertex
+         */
+        public int getBaseVertex() {
+            return vertices.getOffset();
+        }
+
+        /**
+         * get the vertex count
+         *
+         * @return the count
+         */
+        public int getVertexCount() {
+            return vertices.getSize();
+        }
+
+        /**
+         * get the first index in the index buffer
+         *
+         * @return the first index
+         */
+        public int getFirstIndex() {
+            return indices.getOffset();
+        }
+
+        /**
+         * get the index count
+         *
+         * @return the count
+         */
+        public int getIndexCount() {
+            return indices.getSize();
+        }
+    }
+
+    /**
+     * construct
+     *
+     * @param format         the vertex format
+     * @param vertexCapacity the initial vertex capacity
+     * @param indexCapacity  the initial index capacity
+     * @param usage          the buffer usage
+     */
+    public BufferArena(VertexFormat format,
+                       int vertexCapacity,
+                       int indexCapacity,
+                       int usage) {
+        this.format = format;
+        this.usage = usage;
+        vertexAllocator = new RangeAllocator(vertexCapacity);
+        indexAllocator = new RangeAllocator(indexCapacity);
+        vbo = createBuffer((long) vertexCapacity * format.getStride());
+        ibo = createBuffer(indexCapacity * 4L);
+        vao = glGenVertexArrays();
+        setupVao();
+    }
+
+    /**
+     * construct with {@code GL_STATIC_DRAW}
+     *
+     * @param format         the vertex format
+     * @param vertexCapacity the initial vertex capacity
+     * @param indexCapacity  the initial index capacity
+     */
+    public BufferArena(VertexFormat format,
+                       int vertexCapacity,
+                       int indexCapacity) {
+        this(format, vertexCapacity, indexCapacity, GL_STATIC_DRAW);
+    }
+
+    private int createBuffer(long size) {
+        int buffer = glGenBuffers();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, buffer);
+        glBufferData(GL_COPY_WRITE_BUFFER, size, usage);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        return buffer;
+    }
+
+    private void setupVao() {
+        glBindVertexArray(vao);
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        format.enable();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Add a mesh.
+     *
+     * @param vertices the vertices in the vertex format, from the position to the limit
+     * @param indices  the indices, starting at 0
+     * @return the slice
+     */
+    public Slice allocate(ByteBuffer vertices, int[] indices) {
+        Slice slice = allocate(vertices.remaining() / format.getStride(), indices);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, vbo);
+        glBufferSubData(GL_COPY_WRITE_BUFFER,
+            (long) slice.getBaseVertex() * format.getStride(),
+            vertices);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        return slice;
+    }
+
+    /**
+     * Add a mesh whose vertex format only has float elements.
+     *
+     * @param vertices the vertices in the vertex format
+     * @param indices  the indices, starting at 0
+     * @return the slice
+     */
+    public Slice allocate(float[] vertices, int[] indices) {
+        Slice slice = allocate(vertices.length * 4 / format.getStride(), indices);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, vbo);
+        glBufferSubData(GL_COPY_WRITE_BUFFER,
+            (long) slice.getBaseVertex() * format.getStride(),
+            vertices);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        return slice;
+    }
+
+    /**
+     * Add the attributes and indices of a mesh, packed in the vertex format.
+     * The format may only have float elements. Missing colors are white,
+     * other missing attributes are 0. Only the indices of the selected level
+     * of detail are added.
+     *
+     * @param mesh the mesh
+     * @return the slice
+     */
+    public Slice allocate(BaseMesh<?> mesh) {
+        float[] vertices = mesh.getVertices();
+        if (vertices == null) {
+            throw new IllegalArgumentException("The mesh has no vertex array");
+        }
+        int vertexCount = vertices.length / mesh.getVertDim();
+        int stride = format.getStride();
+        ByteBuffer buffer = memAlloc(vertexCount * stride);
+        try {
+            for (VertexFormat.Element element : format.getElements()) {
+                if (element.type != GL_FLOAT) {
+                    throw new IllegalArgumentException("Only float elements can be packed from meshes");
+                }
+                float[] src;
+                int dim;
+                float def = 0;
+                switch (element.usage) {
+                    case POSITION:
+                        src = vertices;
+                        dim = mesh.getVertDim();
+                        break;
+                    case COLOR:
+                        src = mesh.getColors();
+                        dim = mesh.getColorDim();
+                        def = 1;
+                        break;
+                    case TEX_COORD:
+                        src = mesh.getTexCoords();
+                        dim = mesh.getTexDim();
+                        break;
+                    default:
+                        src = mesh.getNormalVert();
+                        dim = mesh.getNormalDim();
+                        break;
+                }
+                for (int v = 0; v < vertexCount; v++) {
+                    for (int c = 0; c < element.size; c++) {
+                        int k = v * dim + c;
+                        buffer.putFloat(v * stride + element.offset + c * 4,
+                            src != null && c < dim && k < src.length ? src[k] : def);
+                    }
+                }
+            }
+            int[] indices = mesh.getIndices();
+            if (indices != null) {
+                // the index array holds all levels of detail
+                int first = mesh.getIndexFirst();
+                int count = mesh.getVertexCount();
+                if (first != 0 || count != indices.length) {
+                    indices = Arrays.copyOfRange(indices, first, first + count);
+                }
+            } else {
+                indices = new int[vertexCount];
+                for (int i = 0; i < vertexCount; i++) {
+                    indices[i] = i;
+                }
+            }
+            return allocate(buffer, indices);
+        } finally {
+            memFree(buffer);
+        }
+    }
+
+    private Slice allocate(int vertexCount, int[] indices) {
+        if (vertexCount <= 0 || indices.length == 0) {
+            throw new IllegalArgumentException("Empty mesh");
+        }
+        RangeAllocator.Range vertexRange = allocate(vertexAllocator, vertexCount, true);
+        RangeAllocator.Range indexRange = allocate(indexAllocator, indices.length, false);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, ibo);
+        glBufferSubData(GL_COPY_WRITE_BUFFER, indexRange.getOffset() * 4L, indices);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        return new Slice(vertexRange, indexRange);
+    }
+
+    private RangeAllocator.Range allocate(RangeAllocator allocator,
+                                          int size,
+                                          boolean vertex) {
+        RangeAllocator.Range range = allocator.allocate(size);
+        if (range == null
+            && allocator.getCapacity() - allocator.getUsed() >= size) {
+            relocate(allocator, vertex, allocator.getCapacity(), true);
+            range = allocator.allocate(size);
+        }
+        if (range == null) {
+            relocate(allocator,
+                vertex,
+                Math.max(allocator.getCapacity() * 2, allocator.getUsed() + size),
+                false);
+            range = allocator.allocate(size);
+        }
+        return range;
+    }
+
+    /**
+     * Copy the data into a new buffer, packed or grown.
+     */
+    private void relocate(RangeAllocator allocator,
+                          boolean vertex,
+                          int capacity,
+                          boolean pack) {
+        long unit = vertex ? format.getStride() : 4;
+        int old = vertex ? vbo : ibo;
+        int fresh = createBuffer(capacity * unit);
+        glBindBuffer(GL_COPY_READ_BUFFER, old);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, fresh);
+        if (pack) {
+            allocator.defragment((from, to, size) ->
+                glCopyBufferSubData(GL_COPY_READ_BUFFER,
+                    GL_COPY_WRITE_BUFFER,
+                    from * unit,
+                    to * unit,
+                    size * unit));
+        } else {
+            glCopyBufferSubData(GL_COPY_READ_BUFFER,
+                GL_COPY_WRITE_BUFFER,
+                0,
+                0,
+                allocator.getEnd() * unit);
+            allocator.grow(capacity);
+        }
+        glBindBuffer(GL_COPY_READ_BUFFER, 0);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        glDeleteBuffers(old);
+        if (vertex) {
+            vbo = fresh;
+        } else {
+            ibo = fresh;
+        }
+        setupVao();
+    }
+
+    /**
+     * Remove a mesh.
+     *
+     * @param slice the slice
+     */
+    public void free(Slice slice) {
+        vertexAllocator.free(slice.vertices);
+        indexAllocator.free(slice.indices);
+    }
+
+    /**
+     * Pack all slices to the front of the buffers.
+     */
+    public void defragment() {
+        relocate(vertexAllocator, true, vertexAllocator.getCapacity(), true);
+        relocate(indexAllocator, false, indexAllocator.getCapacity(), true);
+    }
+
+    /**
+     * Bind the vao to draw slices.
+     */
+    public void bind() {
+        glBindVertexArray(vao);
+    }
+
+    /**
+     * Unbind the vao.
+     */
+    public void unbind() {
+        glBindVertexArray(0);
+    }
+
+    /**
+     * get the vertex format
+     *
+     * @return the format
+     */
+    public VertexFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * get the vertex allocator
+     *
+     * @return the allocator
+     */
+    public RangeAllocator getVertexAllocator() {
+        return vertexAllocator;
+    }
+
+    /**
+     * get the index allocator
+     *
+     * @return the allocator
+     */
+    public RangeAllocator getIndexAllocator() {
+        return indexAllocator;
+    }
+
+    /**
+     * get the vertex buffer
+     *
+     * @return the buffer id
+     */
+    public int getVbo() {
+        return vbo;
+    }
+
+    /**
+     * get the index buffer
+     *
+     * @return the buffer id
+     */
+    public int getIbo() {
+        return ibo;
+    }
+
+    /**
+     * get the vao
+     *
+     * @return the vao id
+     */
+    public int getVao() {
+        return vao;
+    }
+
+    @Override
+    public void close() {
+        glDeleteVertexArrays(vao);
+        glDeleteBuffers(vbo);
+        glDeleteBuffers(ibo);
+    }
+}
@@ -71,5 +71,18 @@ public interface ITesselator {
         return this;
     }
 
+    /**
+     * Initialize, add the vertices of a recorded batch and draw it.
+     *
+     * @param batch The batch.
+     * @return this
+     * @since 1.6.0
+     */
+    default ITesselator draw(RecordedBatch batch) {
+        init();
+        batch.replay(this);
+        return draw(batch.getPrimitive());
+    }
+
     void free();
 }
@@ -25,7 +25,9 @@
 
 package org.overrun.glutils;
 
-import static org.lwjgl.opengl.GL15.*;
+import org.overrun.glutils.internal.QuadIndexBuffer;
+
+import static org.lwjgl.opengl.GL31.*;
 
 /**
  * @author squid233
@@ -34,15 +36,43 @@ import static org.lwjgl.opengl.GL15.*;
 public class IndexedTesselator3 extends Tesselator3 {
     private final Vbo ebo = new Vbo(GL_ELEMENT_ARRAY_BUFFER);
     private int[] array;
+    private boolean quads;
 
     public IndexedTesselator3(boolean fixed) {
         super(fixed);
     }
 
+    /**
+     * Construct with specified initial capacity and vertex layout.
+     *
+     * @param fixed       Upload only once if {@code true}.
+     * @param vertexCount The initial vertex count of the buffer.
+     * @param packing     The packing flags.
+     * @see Tesselator3#Tesselator3(boolean, int, int)
+     * @since 1.6.0
+     */
+    public IndexedTesselator3(boolean fixed, int vertexCount, int packing) {
+        super(fixed, vertexCount, packing);
+    }
+
+    /**
+     * Construct with specified initial capacity and a fixed vertex format.
+     *
+     * @param fixed       Upload only once if {@code true}.
+     * @param vertexCount The initial vertex count of the buffer.
+     * @param format      The vertex format.
+     * @see Tesselator3#Tesselator3(boolean, int, VertexFormat)
+     * @since 1.6.0
+     */
+    public IndexedTesselator3(boolean fixed, int vertexCount, VertexFormat format) {
+        super(fixed, vertexCount, format);
+    }
+
     @Override
     protected void clear() {
         super.clear();
         array = null;
+        quads = false;
     }
 
     @Override
@@ -51,6 +81,28 @@ public class IndexedTesselator3 extends Tesselator3 {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.6.0
+     */
+    @Override
+    public IndexedTesselator3 init(int primitive) {
+        super.init(primitive);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.6.0
+     */
+    @Override
+    public IndexedTesselator3 initBake(int primitive) {
+        super.initBake(primitive);
+        return this;
+    }
+
     @Override
     public IndexedTesselator3 color(float r, float g, float b, float a) {
         super.color(r, g, b, a);
@@ -98,21 +150,144 @@ public class IndexedTesselator3 extends Tesselator3 {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.6.0
+     */
+    @Override
+    public IndexedTesselator3 drawInstanced(int primitive, InstanceBuffer instances) {
+        super.drawInstanced(primitive, instances);
+        return this;
+    }
+
+    /**
+     * Replay a recorded batch in quad mode. Recorded batches have no
+     * indices, so call {@link #quads()} before each replay.
+     *
+     * @param batch The batch.
+     * @return this
+     * @throws IllegalStateException if not in quad mode
+     * @since 1.6.0
+     */
+    @Override
+    public IndexedTesselator3 draw(RecordedBatch batch) {
+        if (!quads) {
+            throw new IllegalStateException(array != null
+                ? "Recorded batches have no indices; replay them after quads() instead of indices(...)"
+                : "Call quads() before replaying a recorded batch");
+        }
+        init(batch.getPrimitive());
+        quads();
+        putBatch(batch);
+        return draw(batch.getPrimitive());
+    }
+
     public IndexedTesselator3 indices(final int... indices) {
         array = indices;
+        quads = false;
+        return this;
+    }
+
+    /**
+     * Draw every 4 vertices as a quad with the shared static index buffer,
+     * instead of uploading indices.
+     * <p>
+     * Call this before adding vertices, so the batch can be split at quads
+     * when the buffer is full.
+     * </p>
+     *
+     * @return this
+     * @since 1.6.0
+     */
+    public IndexedTesselator3 quads() {
+        array = null;
+        quads = true;
+        // the quad indices form triangles, so a full buffer can be split
+        if (primitive == UNKNOWN_PRIMITIVE) {
+            primitive = GL_TRIANGLES;
+        }
         return this;
     }
 
+    /**
+     * The indices can't be split, so the buffer always grows;
+     * quads are split at every 4 vertices.
+     *
+     * @return 4 if drawing quads; otherwise 0
+     * @since 1.6.0
+     */
+    @Override
+    protected int batchVertices() {
+        return quads ? 4 : 0;
+    }
+
     @Override
     protected void setupVbo() {
         super.setupVbo();
-        ebo.bind();
-        ebo.data(array, GL_DYNAMIC_DRAW);
+        if (quads) {
+            QuadIndexBuffer.bind(vertices);
+        } else {
+            ebo.bind();
+            ebo.data(array, GL_DYNAMIC_DRAW);
+        }
     }
 
     @Override
     protected void render(int primitive) {
-        glDrawElements(primitive, array.length, GL_UNSIGNED_INT, 0);
+        if (quads) {
+            glDrawElements(primitive,
+                QuadIndexBuffer.count(vertices),
+                QuadIndexBuffer.type(vertices),
+                0);
+        } else {
+            glDrawElements(primitive, array.length, GL_UNSIGNED_INT, 0);
+        }
+    }
+
+    /**
+     * Quad geometry uses the shared quad index buffer; otherwise the indices
+     * are copied to the geometry.
+     *
+     * @param geometry The geometry being baked.
+     * @since 1.6.0
+     */
+    @Override
+    protected void bakeIndices(BakedGeometry geometry) {
+        if (quads) {
+            geometry.quads();
+        } else if (array != null) {
+            geometry.indices(array);
+        }
+    }
+
+    @Override
+    protected void renderInstanced(int primitive, int instances) {
+        if (quads) {
+            glDrawElementsInstanced(primitive,
+                QuadIndexBuffer.count(vertices),
+                QuadIndexBuffer.type(vertices),
+                0,
+                instances);
+        } else {
+            glDrawElementsInstanced(primitive,
+                array.length,
+                GL_UNSIGNED_INT,
+                0,
+                instances);
+        }
+    }
+
+    /**
+     * Free the quad index buffers shared by all tesselators.
+     * <p>
+     * Call this after freeing all tesselators and geometry baked in quad mode.
+     * </p>
+     *
+     * @since 1.6.0
+     */
+    public static void freeQuadIndices() {
+        QuadIndexBuffer.free();
     }
 
     @Override
@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.opengl.GL;
+
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL43.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Draws many slices of a {@link BufferArena} with one call.
+ * <p>
+ * The draw commands are collected on the CPU each frame, e.g. from the
+ * visible slices, then uploaded to an indirect buffer and submitted with
+ * {@code glMultiDrawElementsIndirect}. Without OpenGL 4.3, they are
+ * submitted with {@code glMultiDrawElementsBaseVertex}, or one
+ * {@code glDrawElementsInstancedBaseVertex} per command if any command
+ * has instances; the base instance is ignored then.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class IndirectBatch implements AutoCloseable {
+    /**
+     * The ints of a command: count, instance count, first index, base
+     * vertex and base instance.
+     */
+    public static final int COMMAND_INTS = 5;
+    private final BufferArena arena;
+    private final boolean indirect;
+    private final int buffer;
+    private long storeSize;
+    private IntBuffer commands = memAllocInt(COMMAND_INTS * 64);
+    private int count;
+    private boolean instanced;
+
+    /**
+     * construct
+     *
+     * @param arena the arena of the slices
+     */
+    public IndirectBatch(BufferArena arena) {
+        this.arena = arena;
+        indirect = GL.getCapabilities().OpenGL43;
+        buffer = indirect ? glGenBuffers() : 0;
+    }
+
+    /**
+     * Remove all commands.
+     */
+    public void clear() {
+        count = 0;
+        instanced = false;
+    }
+
+    /**
+     * Add a slice to draw.
+     *
+     * @param slice the slice
+     * @return this
+     */
+    public IndirectBatch add(BufferArena.Slice slice) {
+        return add(slice, 1, 0);
+    }
+
+    /**
+     * Add a slice to draw.
+     *
+     * @param slice         the slice
+     * @param instanceCount the instance count
+     * @param baseInstance  the first instance of the instanced attributes
+     * @return this
+     */
+    public IndirectBatch add(BufferArena.Slice slice,
+                             int instanceCount,
+                             int baseInstance) {
+        int index = count * COMMAND_INTS;
+        if (index + COMMAND_INTS > commands.capacity()) {
+            commands = memRealloc(commands, commands.capacity() * 2);
+        }
+        commands.put(index, slice.getIndexCount())
+            .put(index + 1, instanceCount)
+            .put(index + 2, slice.getFirstIndex())
+            .put(index + 3, slice.getBaseVertex())
+            .put(index + 4, baseInstance);
+        instanced |= instanceCount != 1;
+        ++count;
+        return this;
+    }
+
+    /**
+     * Draw all commands. The commands are kept until {@link #clear()}.
+     *
+     * @param primitive the primitive
+     */
+    public void render(int primitive) {
+        if (count == 0) {
+            return;
+        }
+        arena.bind();
+        commands.limit(count * COMMAND_INTS);
+        if (indirect) {
+            glBindBuffer(GL_DRAW_INDIRECT_BUFFER, buffer);
+            long bytes = count * COMMAND_INTS * 4L;
+            if (bytes > storeSize) {
+                storeSize = Math.max(bytes, storeSize * 2);
+            }
+            // orphan the commands of the last frame
+            glBufferData(GL_DRAW_INDIRECT_BUFFER, storeSize, GL_STREAM_DRAW);
+            glBufferSubData(GL_DRAW_INDIRECT_BUFFER, 0, commands);
+            glMultiDrawElementsIndirect(primitive, GL_UNSIGNED_INT, 0L, count, 0);
+            glBindBuffer(GL_DRAW_INDIRECT_BUFFER, 0);
+        } else if (instanced) {
+            for (int i = 0; i < count * COMMAND_INTS; i += COMMAND_INTS) {
+                glDrawElementsInstancedBaseVertex(primitive,
+                    commands.get(i),
+                    GL_UNSIGNED_INT,
+                    commands.get(i + 2) * 4L,
+                    commands.get(i + 1),
+                    commands.get(i + 3));
+            }
+        } else {
+            IntBuffer counts = memAllocInt(count);
+            PointerBuffer offsets = memAllocPointer(count);
+            IntBuffer baseVertices = memAllocInt(count);
+            for (int i = 0; i < count; i++) {
+                counts.put(i, commands.get(i * COMMAND_INTS));
+                offsets.put(i, commands.get(i * COMMAND_INTS + 2) * 4L);
+                baseVertices.put(i, commands.get(i * COMMAND_INTS + 3));
+            }
+            glMultiDrawElementsBaseVertex(primitive,
+                counts,
+                GL_UNSIGNED_INT,
+                offsets,
+                baseVertices);
+            memFree(counts);
+            memFree(offsets);
+            memFree(baseVertices);
+        }
+        commands.clear();
+        arena.unbind();
+    }
+
+    /**
+     * get command count
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * is drawn with {@code glMultiDrawElementsIndirect}
+     *
+     * @return {@code true} if OpenGL 4.3 is available
+     */
+    public boolean isIndirect() {
+        return indirect;
+    }
+
+    @Override
+    public void close() {
+        memFree(commands);
+        if (buffer != 0) {
+            glDeleteBuffers(buffer);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import org.joml.Matrix4fc;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Per-instance attributes for instanced drawing.
+ * <p>
+ * Each instance has a model matrix, taking 4 attribute locations from the
+ * model index, and a color tint.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class InstanceBuffer {
+    /**
+     * The default attribute index of the model matrix.
+     */
+    public static final int MODEL_INDEX = 4;
+    /**
+     * The default attribute index of the tint.
+     */
+    public static final int TINT_INDEX = 8;
+    /**
+     * The count of floats per instance.
+     */
+    public static final int INSTANCE_SIZE = 16 + 4;
+    private static final int STRIDE = INSTANCE_SIZE * Float.BYTES;
+    private final Vbo vbo = new Vbo(GL_ARRAY_BUFFER);
+    private final VertexAttrib[] model = new VertexAttrib[4];
+    private final VertexAttrib tint;
+    private FloatBuffer buffer;
+    private int count;
+    private boolean dirty;
+
+    /**
+     * Construct with the default attribute indices.
+     */
+    public InstanceBuffer() {
+        this(MODEL_INDEX, TINT_INDEX);
+    }
+
+    /**
+     * Construct with specified attribute indices.
+     *
+     * @param modelIndex The first index of the model matrix.
+     * @param tintIndex  The index of the tint, or -1 to skip it; the
+     *                   tesselator programs then draw with white tint.
+     */
+    public InstanceBuffer(int modelIndex, int tintIndex) {
+        for (int i = 0; i < 4; i++) {
+            model[i] = new VertexAttrib(modelIndex + i);
+        }
+        tint = tintIndex >= 0 ? new VertexAttrib(tintIndex) : null;
+        buffer = memAllocFloat(INSTANCE_SIZE * 64);
+    }
+
+    /**
+     * Remove all instances.
+     *
+     * @return this
+     */
+    public InstanceBuffer clear() {
+        buffer.clear();
+        count = 0;
+        dirty = true;
+        return this;
+    }
+
+    /**
+     * Add an instance without tint.
+     *
+     * @param model The model matrix.
+     * @return this
+     */
+    public InstanceBuffer add(Matrix4fc model) {
+        return add(model, 1, 1, 1, 1);
+    }
+
+    /**
+     * Add an instance.
+     *
+     * @param model The model matrix.
+     * @param r     The red tint.
+     * @param g     The green tint.
+     * @param b     The blue tint.
+     * @param a     The alpha tint.
+     * @return this
+     */
+    public InstanceBuffer add(Matrix4fc model,
+                              float r,
+                              float g,
+                              float b,
+                              float a) {
+        if (buffer.remaining() < INSTANCE_SIZE) {
+            buffer = memRealloc(buffer, buffer.capacity() * 2);
+        }
+        int pos = buffer.position();
+        model.get(pos, buffer);
+        buffer.position(pos + 16);
+        buffer.put(r).put(g).put(b).put(a);
+        ++count;
+        dirty = true;
+        return this;
+    }
+
+    /**
+     * Upload the instances if changed, then set and enable the attributes
+     * in current vertex array.
+     */
+    public void enable() {
+        vbo.bind();
+        if (dirty) {
+            int pos = buffer.position();
+            buffer.flip();
+            vbo.data(buffer, GL_STREAM_DRAW);
+            buffer.limit(buffer.capacity());
+            buffer.position(pos);
+            dirty = false;
+        }
+        for (int i = 0; i < 4; i++) {
+            model[i].pointer(4, GL_FLOAT, false, STRIDE, i * 16L);
+            model[i].divisor(1);
+            model[i].enable();
+        }
+        if (tint != null) {
+            tint.pointer(4, GL_FLOAT, false, STRIDE, 64);
+            tint.divisor(1);
+            tint.enable();
+        }
+        vbo.unbind();
+    }
+
+    /**
+     * Check if the instances have tint.
+     *
+     * @return has tint
+     */
+    public boolean hasTint() {
+        return tint != null;
+    }
+
+    /**
+     * Disable the attributes in current vertex array.
+     */
+    public void disable() {
+        for (VertexAttrib attrib : model) {
+            attrib.divisor(0);
+            attrib.disable();
+        }
+        if (tint != null) {
+            tint.divisor(0);
+            tint.disable();
+        }
+    }
+
+    /**
+     * Get the instance count.
+     *
+     * @return the instance count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Free the buffers.
+     */
+    public void free() {
+        memFree(buffer);
+        vbo.free();
+    }
+}
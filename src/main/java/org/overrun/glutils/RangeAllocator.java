@@ -0,0 +1,288 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import java.util.*;
+
+/**
+ * A free-list allocator of ranges in a linear space, e.g. the elements of a
+ * buffer. It only does the bookkeeping, so it runs without a GL context.
+ * <p>
+ * Allocation picks the smallest free block that fits, with the lowest
+ * offset among equal sizes, in logarithmic time. Freed ranges are
+ * merged with their free neighbours. {@link #defragment(MoveListener)}
+ * packs all live ranges to the front and reports where each one goes.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class RangeAllocator {
+    /**
+     * free blocks, offset to size
+     */
+    private final TreeMap<Integer, Integer> freeBlocks = new TreeMap<>();
+    /**
+     * free blocks, size to offsets; for the best fit lookup
+     */
+    private final TreeMap<Integer, TreeSet<Integer>> freeBySize = new TreeMap<>();
+    private final Set<Range> ranges = new HashSet<>();
+    private int capacity;
+    private int used;
+
+    /**
+     * An allocated range. The offset changes on defragmentation.
+     */
+    public static class Range {
+        private int offset;
+        private final int size;
+        private boolean freed;
+
+        private Range(int offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+
+        /**
+         * get offset
+         *
+         * @return offset
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * get size
+         *
+         * @return size
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * is freed
+         *
+         * @return {@code true} if freed
+         */
+        public boolean isFreed() {
+            return freed;
+        }
+    }
+
+    /**
+     * Receives the ranges on defragmentation.
+     */
+    @FunctionalInterface
+    public interface MoveListener {
+        /**
+         * Move the data.
+         *
+         * @param from the old offset
+         * @param to   the new offset
+         * @param size the size
+         */
+        void move(int from, int to, int size);
+    }
+
+    /**
+     * construct
+     *
+     * @param capacity the capacity
+     */
+    public RangeAllocator(int capacity) {
+        this.capacity = capacity;
+        if (capacity > 0) {
+            putFree(0, capacity);
+        }
+    }
+
+    private void putFree(int offset, int size) {
+        freeBlocks.put(offset, size);
+        freeBySize.computeIfAbsent(size, k -> new TreeSet<>()).add(offset);
+    }
+
+    private int removeFree(int offset) {
+        int size = freeBlocks.remove(offset);
+        TreeSet<Integer> offsets = freeBySize.get(size);
+        offsets.remove(offset);
+        if (offsets.isEmpty()) {
+            freeBySize.remove(size);
+        }
+        return size;
+    }
+
+    /**
+     * Allocate a range.
+     *
+     * @param size the size; must be positive
+     * @return the range, or {@code null} if no free block is large enough
+     */
+    public Range allocate(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive, got " + size);
+        }
+        Map.Entry<Integer, TreeSet<Integer>> best = freeBySize.ceilingEntry(size);
+        if (best == null) {
+            return null;
+        }
+        int bestOffset = best.getValue().first();
+        int bestSize = best.getKey();
+        removeFree(bestOffset);
+        if (bestSize > size) {
+            putFree(bestOffset + size, bestSize - size);
+        }
+        Range range = new Range(bestOffset, size);
+        ranges.add(range);
+        used += size;
+        return range;
+    }
+
+    /**
+     * Free a range and merge it with the free neighbours.
+     *
+     * @param range the range
+     */
+    public void free(Range range) {
+        if (!ranges.remove(range)) {
+            throw new IllegalArgumentException("The range is not allocated here");
+        }
+        range.freed = true;
+        used -= range.size;
+        int offset = range.offset;
+        int size = range.size;
+        Map.Entry<Integer, Integer> prev = freeBlocks.lowerEntry(offset);
+        if (prev != null && prev.getKey() + prev.getValue() == offset) {
+            removeFree(prev.getKey());
+            offset = prev.getKey();
+            size += prev.getValue();
+        }
+        if (freeBlocks.containsKey(offset + size)) {
+            size += removeFree(offset + size);
+        }
+        putFree(offset, size);
+    }
+
+    /**
+     * Grow the capacity. The new space is merged with the last free block.
+     *
+     * @param newCapacity the new capacity
+     */
+    public void grow(int newCapacity) {
+        if (newCapacity <= capacity) {
+            return;
+        }
+        int offset = capacity;
+        int size = newCapacity - capacity;
+        Map.Entry<Integer, Integer> last = freeBlocks.lastEntry();
+        if (last != null && last.getKey() + last.getValue() == capacity) {
+            removeFree(last.getKey());
+            offset = last.getKey();
+            size += last.getValue();
+        }
+        putFree(offset, size);
+        capacity = newCapacity;
+    }
+
+    /**
+     * Move all ranges to the front in their current order, leaving one free
+     * block at the end.
+     *
+     * @param listener called for each range in order of offset, also for the
+     *                 ranges that stay ({@code from == to})
+     * @return the count of moved ranges
+     */
+    public int defragment(MoveListener listener) {
+        List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingInt(Range::getOffset));
+        int offset = 0;
+        int moved = 0;
+        for (Range range : sorted) {
+            listener.move(range.offset, offset, range.size);
+            if (range.offset != offset) {
+                range.offset = offset;
+                ++moved;
+            }
+            offset += range.size;
+        }
+        freeBlocks.clear();
+        freeBySize.clear();
+        if (offset < capacity) {
+            putFree(offset, capacity - offset);
+        }
+        return moved;
+    }
+
+    /**
+     * get capacity
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * get the allocated size
+     *
+     * @return the sum of all range sizes
+     */
+    public int getUsed() {
+        return used;
+    }
+
+    /**
+     * get the free block count; more blocks mean more fragmentation
+     *
+     * @return the count
+     */
+    public int getFreeBlockCount() {
+        return freeBlocks.size();
+    }
+
+    /**
+     * get the largest free block size
+     *
+     * @return the size
+     */
+    public int getLargestFree() {
+        return freeBySize.isEmpty() ? 0 : freeBySize.lastKey();
+    }
+
+    /**
+     * get the end of the last range
+     *
+     * @return the end
+     */
+    public int getEnd() {
+        Map.Entry<Integer, Integer> last = freeBlocks.lastEntry();
+        if (last != null && last.getKey() + last.getValue() == capacity) {
+            return last.getKey();
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+/**
+ * An immutable batch of vertices recorded by {@link VertexRecorder}.
+ * <p>
+ * The vertices are interleaved as {@code x, y, z[, r, g, b, a][, u, v]}.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class RecordedBatch {
+    private final int primitive;
+    private final boolean colored;
+    private final boolean textured;
+    private final int vertexCount;
+    private final float[] data;
+
+    /**
+     * construct
+     *
+     * @param primitive   the primitive
+     * @param colored     has colors
+     * @param textured    has texture coordinates
+     * @param vertexCount the vertex count
+     * @param data        the interleaved vertices, which are kept without
+     *                    copying, so don't modify them later
+     */
+    public RecordedBatch(int primitive,
+                         boolean colored,
+                         boolean textured,
+                         int vertexCount,
+                         float[] data) {
+        this.primitive = primitive;
+        this.colored = colored;
+        this.textured = textured;
+        this.vertexCount = vertexCount;
+        this.data = data;
+    }
+
+    /**
+     * Add the vertices to a tesselator.
+     * <p>
+     * This doesn't initialize or draw the tesselator.
+     * </p>
+     *
+     * @param t the tesselator
+     */
+    public void replay(ITesselator t) {
+        int stride = getStride();
+        for (int i = 0, p = 0; i < vertexCount; i++, p += stride) {
+            int q = p + 3;
+            if (colored) {
+                t.color(data[q], data[q + 1], data[q + 2], data[q + 3]);
+                q += 4;
+            }
+            if (textured) {
+                t.tex(data[q], data[q + 1]);
+            }
+            t.vertex(data[p], data[p + 1], data[p + 2]);
+        }
+    }
+
+    /**
+     * Get the count of floats per vertex.
+     *
+     * @return the stride
+     */
+    public int getStride() {
+        int stride = 3;
+        if (colored) {
+            stride += 4;
+        }
+        if (textured) {
+            stride += 2;
+        }
+        return stride;
+    }
+
+    public int getPrimitive() {
+        return primitive;
+    }
+
+    public boolean isColored() {
+        return colored;
+    }
+
+    public boolean isTextured() {
+        return textured;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Get a copy of the interleaved vertices.
+     *
+     * @return the data
+     */
+    public float[] getData() {
+        return data.clone();
+    }
+
+    /**
+     * Get the interleaved vertices without copying, for the tesselators to
+     * read in bulk.
+     *
+     * @return the data
+     */
+    float[] array() {
+        return data;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hand recorded batches from worker threads to the render thread in order.
+ * <p>
+ * Reserve a ticket in submitting order, record on any thread, then submit the
+ * batches with the ticket. The render thread drains the batches by ticket
+ * order, and stops at the first ticket that is not submitted yet.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class RecordedBatchQueue {
+    private final Map<Long, List<RecordedBatch>> submitted = new ConcurrentHashMap<>();
+    private final AtomicLong next = new AtomicLong();
+    private long drained;
+
+    /**
+     * Reserve a ticket.
+     *
+     * @return the ticket
+     */
+    public long reserve() {
+        return next.getAndIncrement();
+    }
+
+    /**
+     * Submit the batches of a ticket. Can be called on any thread.
+     *
+     * @param ticket  the ticket from {@link #reserve()}
+     * @param batches the batches
+     */
+    public void submit(long ticket, List<RecordedBatch> batches) {
+        submitted.put(ticket, batches);
+    }
+
+    /**
+     * Submit the batches of the recorder of current thread.
+     *
+     * @param ticket the ticket from {@link #reserve()}
+     * @see VertexRecorder#finish()
+     */
+    public void submit(long ticket) {
+        submit(ticket, VertexRecorder.get().finish());
+    }
+
+    /**
+     * Drain the submitted batches in order. Call on the render thread.
+     *
+     * @param consumer the consumer
+     * @return the count of drained tickets
+     */
+    public int drain(Consumer<RecordedBatch> consumer) {
+        int count = 0;
+        List<RecordedBatch> batches;
+        while ((batches = submitted.remove(drained)) != null) {
+            for (RecordedBatch batch : batches) {
+                consumer.accept(batch);
+            }
+            ++drained;
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Draw the submitted batches in order. Call on the render thread.
+     *
+     * @param t the tesselator
+     * @return the count of drained tickets
+     */
+    public int drain(ITesselator t) {
+        return drain(t::draw);
+    }
+
+    /**
+     * Check whether all reserved tickets are drained.
+     *
+     * @return is empty
+     */
+    public boolean isEmpty() {
+        return drained == next.get();
+    }
+}
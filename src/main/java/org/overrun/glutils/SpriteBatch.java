@@ -0,0 +1,373 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import org.joml.Matrix4fc;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Sprite renderer that sorts the quads by state and draws them with the
+ * fewest draw calls.
+ * <p>
+ * Sprites are drawn in ascending depth. Sprites with the same depth are grouped
+ * by blend mode and texture, and the order of the sprites with the same state
+ * is kept.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class SpriteBatch {
+    /**
+     * Disable blending.
+     */
+    public static final int BLEND_NONE = 0;
+    /**
+     * {@code glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA)}
+     */
+    public static final int BLEND_ALPHA = 1;
+    /**
+     * {@code glBlendFunc(GL_SRC_ALPHA, GL_ONE)}
+     */
+    public static final int BLEND_ADDITIVE = 2;
+    /**
+     * {@code glBlendFunc(GL_DST_COLOR, GL_ZERO)}
+     */
+    public static final int BLEND_MULTIPLY = 3;
+    private static final int SPRITE_SIZE = 12;
+    private static final long STATE_MASK = 0xff_ffff_ffffL;
+    private final IndexedTesselator3 tesselator;
+    private float[] sprites;
+    private long[] keys;
+    private long[] tmpKeys;
+    private int[] order;
+    private int[] tmpOrder;
+    private final int[] histogram = new int[256];
+    private int count;
+    private int drawCalls;
+
+    /**
+     * Construct with 1024 sprites initial capacity.
+     */
+    public SpriteBatch() {
+        this(1024);
+    }
+
+    /**
+     * Construct with specified initial capacity.
+     *
+     * @param capacity The initial sprite count.
+     */
+    public SpriteBatch(int capacity) {
+        tesselator = new IndexedTesselator3(false,
+            capacity * 4,
+            Tesselator3.PACK_COLOR);
+        sprites = new float[capacity * SPRITE_SIZE];
+        keys = new long[capacity];
+        tmpKeys = new long[capacity];
+        order = new int[capacity];
+        tmpOrder = new int[capacity];
+    }
+
+    /**
+     * Begin a frame.
+     *
+     * @param mvp The projection view matrix.
+     * @return this
+     */
+    public SpriteBatch begin(Matrix4fc mvp) {
+        tesselator.setMatrix(mvp);
+        count = 0;
+        return this;
+    }
+
+    /**
+     * Add a white sprite.
+     *
+     * @param texture The texture id, or 0 for untextured.
+     * @param blend   The blend mode.
+     * @param depth   The depth in [-32768, 32767].
+     * @param x       Position x.
+     * @param y       Position y.
+     * @param w       Width.
+     * @param h       Height.
+     * @param u0      Left texture coordinate.
+     * @param v0      Top texture coordinate.
+     * @param u1      Right texture coordinate.
+     * @param v1      Bottom texture coordinate.
+     * @return this
+     */
+    public SpriteBatch draw(int texture,
+                            int blend,
+                            int depth,
+                            float x,
+                            float y,
+                            float w,
+                            float h,
+                            float u0,
+                            float v0,
+                            float u1,
+                            float v1) {
+        return draw(texture, blend, depth, x, y, w, h, u0, v0, u1, v1, 1, 1, 1, 1);
+    }
+
+    /**
+     * Add a sprite.
+     *
+     * @param texture The texture id, or 0 for untextured.
+     * @param blend   The blend mode.
+     * @param depth   The depth in [-32768, 32767].
+     * @param x       Position x.
+     * @param y       Position y.
+     * @param w       Width.
+     * @param h       Height.
+     * @param u0      Left texture coordinate.
+     * @param v0      Top texture coordinate.
+     * @param u1      Right texture coordinate.
+     * @param v1      Bottom texture coordinate.
+     * @param r       Red.
+     * @param g       Green.
+     * @param b       Blue.
+     * @param a       Alpha.
+     * @return this
+     */
+    public SpriteBatch draw(int texture,
+                            int blend,
+                            int depth,
+                            float x,
+                            float y,
+                            float w,
+                            float h,
+                            float u0,
+                            float v0,
+                            float u1,
+                            float v1,
+                            float r,
+                            float g,
+                            float b,
+                            float a) {
+        if (count == keys.length) {
+            int capacity = count * 2;
+            sprites = Arrays.copyOf(sprites, capacity * SPRITE_SIZE);
+            keys = Arrays.copyOf(keys, capacity);
+            tmpKeys = new long[capacity];
+            order = new int[capacity];
+            tmpOrder = new int[capacity];
+        }
+        keys[count] = key(texture, blend, depth);
+        int p = count * SPRITE_SIZE;
+        sprites[p] = x;
+        sprites[p + 1] = y;
+        sprites[p + 2] = x + w;
+        sprites[p + 3] = y + h;
+        sprites[p + 4] = u0;
+        sprites[p + 5] = v0;
+        sprites[p + 6] = u1;
+        sprites[p + 7] = v1;
+        sprites[p + 8] = r;
+        sprites[p + 9] = g;
+        sprites[p + 10] = b;
+        sprites[p + 11] = a;
+        ++count;
+        return this;
+    }
+
+    /**
+     * Build the state key.
+     * <p>
+     * From high to low: 16 bits depth, 8 bits blend mode and 32 bits
+     * texture id. The depth is biased to be unsigned.
+     * </p>
+     *
+     * @param texture The texture id.
+     * @param blend   The blend mode.
+     * @param depth   The depth.
+     * @return the key
+     */
+    public static long key(int texture, int blend, int depth) {
+        return (long) ((depth + 0x8000) & 0xffff) << 40
+            | (long) (blend & 0xff) << 32
+            | texture & 0xffff_ffffL;
+    }
+
+    /**
+     * Sort the indices by keys with LSD radix sort. The sort is stable.
+     * <p>
+     * The passes that all keys have the same byte are skipped.
+     * </p>
+     *
+     * @param keys      The keys. Will be sorted.
+     * @param order     The indices. Will be reordered with the keys.
+     * @param tmpKeys   The temporary keys with at least {@code n} length.
+     * @param tmpOrder  The temporary indices with at least {@code n} length.
+     * @param n         The count to sort.
+     * @param bytes     The count of low bytes in the keys.
+     * @param histogram The histogram with 256 length.
+     */
+    public static void radixSort(long[] keys,
+                                 int[] order,
+                                 long[] tmpKeys,
+                                 int[] tmpOrder,
+                                 int n,
+                                 int bytes,
+                                 int[] histogram) {
+        long[] srcKeys = keys, dstKeys = tmpKeys;
+        int[] srcOrder = order, dstOrder = tmpOrder;
+        for (int shift = 0; shift < bytes * 8; shift += 8) {
+            Arrays.fill(histogram, 0);
+            for (int i = 0; i < n; i++) {
+                ++histogram[(int) (srcKeys[i] >>> shift) & 0xff];
+            }
+            if (histogram[(int) (srcKeys[0] >>> shift) & 0xff] == n) {
+                continue;
+            }
+            for (int i = 0, sum = 0; i < 256; i++) {
+                int c = histogram[i];
+                histogram[i] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int j = histogram[(int) (srcKeys[i] >>> shift) & 0xff]++;
+                dstKeys[j] = srcKeys[i];
+                dstOrder[j] = srcOrder[i];
+            }
+            long[] k = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = k;
+            int[] o = srcOrder;
+            srcOrder = dstOrder;
+            dstOrder = o;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(srcOrder, 0, order, 0, n);
+        }
+    }
+
+    /**
+     * Sort and draw the sprites.
+     * <p>
+     * The blend state and the texture binding of unit 0 are changed.
+     * </p>
+     *
+     * @return the count of draw calls issued
+     */
+    public int end() {
+        tesselator.resetDrawCalls();
+        if (count > 0) {
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            radixSort(keys, order, tmpKeys, tmpOrder, count, 7, histogram);
+            int blend = -1;
+            long state = -1;
+            for (int i = 0; i < count; i++) {
+                long s = keys[i] & STATE_MASK;
+                if (s != state) {
+                    if (state != -1) {
+                        tesselator.draw();
+                    }
+                    state = s;
+                    int b = (int) (s >>> 32);
+                    if (b != blend) {
+                        blend = b;
+                        applyBlend(b);
+                    }
+                    Textures.active(0);
+                    Textures.bind2D((int) s);
+                    tesselator.init().quads();
+                }
+                put((int) s != 0, order[i] * SPRITE_SIZE);
+            }
+            tesselator.draw();
+            Textures.unbind2D();
+        }
+        drawCalls = tesselator.getDrawCalls();
+        count = 0;
+        return drawCalls;
+    }
+
+    private void put(boolean textured, int p) {
+        float x0 = sprites[p], y0 = sprites[p + 1];
+        float x1 = sprites[p + 2], y1 = sprites[p + 3];
+        float u0 = sprites[p + 4], v0 = sprites[p + 5];
+        float u1 = sprites[p + 6], v1 = sprites[p + 7];
+        tesselator.color(sprites[p + 8],
+            sprites[p + 9],
+            sprites[p + 10],
+            sprites[p + 11]);
+        if (textured) {
+            tesselator.vertexUV(x0, y0, 0, u0, v0)
+                .vertexUV(x0, y1, 0, u0, v1)
+                .vertexUV(x1, y1, 0, u1, v1)
+                .vertexUV(x1, y0, 0, u1, v0);
+        } else {
+            tesselator.vertex(x0, y0, 0)
+                .vertex(x0, y1, 0)
+                .vertex(x1, y1, 0)
+                .vertex(x1, y0, 0);
+        }
+    }
+
+    private static void applyBlend(int blend) {
+        switch (blend) {
+            case BLEND_NONE:
+                glDisable(GL_BLEND);
+                break;
+            case BLEND_ALPHA:
+                glEnable(GL_BLEND);
+                glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+                break;
+            case BLEND_ADDITIVE:
+                glEnable(GL_BLEND);
+                glBlendFunc(GL_SRC_ALPHA, GL_ONE);
+                break;
+            case BLEND_MULTIPLY:
+                glEnable(GL_BLEND);
+                glBlendFunc(GL_DST_COLOR, GL_ZERO);
+                break;
+        }
+    }
+
+    /**
+     * Get the count of draw calls issued by last {@link #end()}.
+     *
+     * @return the count of draw calls
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Free the tesselator.
+     */
+    public void free() {
+        tesselator.free();
+    }
+}
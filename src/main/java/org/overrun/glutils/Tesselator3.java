@@ -26,91 +26,273 @@
 package org.overrun.glutils;
 
 import org.joml.Matrix4fc;
+import org.overrun.glutils.internal.TesselatorProgramManager;
 
-import java.nio.FloatBuffer;
+import java.nio.ByteBuffer;
 
-import static org.lwjgl.opengl.GL15.*;
-import static org.lwjgl.system.MemoryUtil.memAllocFloat;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.system.MemoryUtil.*;
 
 /**
  * Tesselator for OpenGL 3.3
+ * <p>
+ * When the buffer is full, a dynamic tesselator initialized by
+ * {@link #init(int)} submits the vertices of the complete primitives as a
+ * partial batch and keeps going; a fixed tesselator, or a batch started by
+ * {@link #init()} or {@link #initBake(int)}, grows its buffer instead.
+ * </p>
+ * <p>
+ * The vertex layout is either a {@link VertexFormat} given at construction,
+ * or chosen by the first vertex of each batch from the attributes set before
+ * it. In the latter case, enabling color or texture after the first vertex
+ * throws {@link IllegalStateException}.
+ * </p>
  *
  * @author squid233
  * @since 1.5.0
  */
 public class Tesselator3 implements ITesselator {
     public static final int VERTEX_COUNT = 60000;
-    public static final int MEMORY_USE = (3 + 4 + 2) * VERTEX_COUNT;
-    private final GLProgram program = new GLProgram();
+    /**
+     * The max count of floats per vertex.
+     *
+     * @since 1.6.0
+     */
+    public static final int VERTEX_SIZE = 3 + 4 + 2;
+    public static final int MEMORY_USE = VERTEX_SIZE * VERTEX_COUNT;
+    /**
+     * The max count of bytes per vertex.
+     *
+     * @since 1.6.0
+     */
+    public static final int VERTEX_BYTES = VERTEX_SIZE * Float.BYTES;
+    /**
+     * Store colors as normalized unsigned bytes.
+     *
+     * @since 1.6.0
+     */
+    public static final int PACK_COLOR = 0x1;
+    /**
+     * Store texture coordinates as normalized unsigned shorts.
+     * <p>
+     * The coordinates are clamped to [0, 1].
+     * </p>
+     *
+     * @since 1.6.0
+     */
+    public static final int PACK_TEX = 0x2;
+    /**
+     * Store positions as half floats.
+     *
+     * @since 1.6.0
+     */
+    public static final int PACK_VERTEX = 0x4;
+    private static final VertexFormat[] FORMATS = new VertexFormat[32];
     private final Vao vao = new Vao();
     private final Vbo vbo = new Vbo(GL_ARRAY_BUFFER);
-    private final float[] array = new float[MEMORY_USE];
-    private final FloatBuffer buffer = memAllocFloat(MEMORY_USE);
-    private final VertexAttrib vertex = new VertexAttrib(0);
-    private final VertexAttrib color = new VertexAttrib(1);
-    private final VertexAttrib texCoord = new VertexAttrib(2);
+    private final int initialBytes;
+    private ByteBuffer buffer;
+    private long address;
     protected final boolean fixed;
+    private final VertexFormat fixedFormat;
+    private final int packing;
+    private VertexFormat format;
+    private VertexFormat.VertexWriter writer;
+    private VertexFormat enabledFormat;
+    private int stride;
+    /**
+     * The max byte offset that the next vertex can be put at without
+     * overflowing, or -1 if the format isn't chosen yet.
+     */
+    private int limit = -1;
     protected boolean rendered;
-    private float r, g, b, a, u, v;
+    private float r = 1, g = 1, b = 1, a = 1, u, v;
     protected int vertices;
+    /**
+     * The byte offset of next vertex in the buffer.
+     */
     protected int pos;
+    /**
+     * The primitive of a batch started by {@link #init()}, which is only
+     * known at {@link #draw(int)}.
+     *
+     * @since 1.6.0
+     */
+    protected static final int UNKNOWN_PRIMITIVE = -1;
+    /**
+     * The primitive of current batch.
+     *
+     * @since 1.6.0
+     */
+    protected int primitive = GL_TRIANGLES;
     private boolean hasColor;
     private boolean hasTexture;
+    private boolean baking;
+    private boolean split;
     private Matrix4fc mvp;
+    private int drawCalls;
 
     public Tesselator3(boolean fixed) {
+        this(fixed, VERTEX_COUNT);
+    }
+
+    /**
+     * Construct with specified initial capacity.
+     *
+     * @param fixed       Upload only once if {@code true}.
+     * @param vertexCount The initial vertex count of the buffer.
+     * @since 1.6.0
+     */
+    public Tesselator3(boolean fixed, int vertexCount) {
+        this(fixed, vertexCount, 0);
+    }
+
+    /**
+     * Construct with specified initial capacity and vertex layout.
+     *
+     * @param fixed       Upload only once if {@code true}.
+     * @param vertexCount The initial vertex count of the buffer.
+     * @param packing     The packing flags. Zero or more of:
+     *                    {@link #PACK_COLOR}, {@link #PACK_TEX},
+     *                    {@link #PACK_VERTEX}
+     * @since 1.6.0
+     */
+    public Tesselator3(boolean fixed, int vertexCount, int packing) {
+        this(fixed, vertexCount, packing, null);
+    }
+
+    /**
+     * Construct with specified initial capacity and a fixed vertex format.
+     * <p>
+     * The built-in programs read the position, color and texture coordinate
+     * at attribute 0, 1 and 2; normals are written as zero.
+     * </p>
+     *
+     * @param fixed       Upload only once if {@code true}.
+     * @param vertexCount The initial vertex count of the buffer.
+     * @param format      The vertex format.
+     * @since 1.6.0
+     */
+    public Tesselator3(boolean fixed, int vertexCount, VertexFormat format) {
+        this(fixed, vertexCount, 0, format);
+    }
+
+    private Tesselator3(boolean fixed,
+                        int vertexCount,
+                        int packing,
+                        VertexFormat format) {
         this.fixed = fixed;
-        program.createVsh("#version 330\n" +
-            "layout(location = 0) in vec3 vertex;\n" +
-            "layout(location = 1) in vec4 color;\n" +
-            "layout(location = 2) in vec2 texCoord;\n" +
-            "out vec4 fragColor;\n" +
-            "out vec2 fragTexCoord;\n" +
-            "uniform mat4 mvp;\n" +
-            "void main() {\n" +
-            "    gl_Position = mvp * vec4(vertex, 1.0);\n" +
-            "    fragColor = color;\n" +
-            "    fragTexCoord = texCoord;\n" +
-            "}");
-        program.createFsh("#version 330\n" +
-            "in vec4 fragColor;\n" +
-            "in vec2 fragTexCoord;\n" +
-            "out vec4 FragColor;\n" +
-            "uniform bool hasColor, hasTexture;\n" +
-            "uniform sampler2D sampler;\n" +
-            "void main() {\n" +
-            "    FragColor = vec4(1.0, 1.0, 1.0, 1.0);\n" +
-            "    if (hasColor) {\n" +
-            "        FragColor *= fragColor;\n" +
-            "    }\n" +
-            "    if (hasTexture) {\n" +
-            "        FragColor *= texture(sampler, fragTexCoord);\n" +
-            "    }\n" +
-            "}");
-        program.link();
+        this.packing = packing;
+        fixedFormat = format;
+        initialBytes = (format != null
+            ? format
+            : dynamicFormat(true, true, packing)).getStride() * vertexCount;
+        allocate();
+        if (format != null) {
+            lock(format);
+        }
+    }
+
+    private void allocate() {
+        buffer = memAlloc(initialBytes);
+        address = memAddress(buffer);
+    }
+
+    private static VertexFormat dynamicFormat(boolean color,
+                                              boolean tex,
+                                              int packing) {
+        int i = (packing & 0x7) << 2 | (color ? 2 : 0) | (tex ? 1 : 0);
+        VertexFormat f = FORMATS[i];
+        if (f == null) {
+            VertexFormat.Builder builder = VertexFormat.builder()
+                .position((packing & PACK_VERTEX) != 0 ? GL_HALF_FLOAT : GL_FLOAT);
+            if (color) {
+                builder.color((packing & PACK_COLOR) != 0 ? GL_UNSIGNED_BYTE : GL_FLOAT);
+            }
+            if (tex) {
+                builder.texCoord((packing & PACK_TEX) != 0 ? GL_UNSIGNED_SHORT : GL_FLOAT);
+            }
+            f = builder.build();
+            FORMATS[i] = f;
+        }
+        return f;
+    }
+
+    private void lock(VertexFormat format) {
+        this.format = format;
+        writer = format.getWriter();
+        stride = format.getStride();
+        limit = buffer.capacity() - stride;
     }
 
     protected void clear() {
-        buffer.clear();
+        if (buffer != null) {
+            buffer.clear();
+        }
         vertices = 0;
         pos = 0;
+        baking = false;
+        split = false;
+        if (fixedFormat == null) {
+            format = null;
+            limit = -1;
+        }
     }
 
+    /**
+     * Initialize without knowing the primitive, so the buffer grows instead
+     * of splitting the batch when full.
+     *
+     * @return this
+     */
     @Override
     public Tesselator3 init() {
+        return init(UNKNOWN_PRIMITIVE);
+    }
+
+    /**
+     * Initialize with the primitive that will be drawn.
+     * <p>
+     * The primitive is used to split the batch when the buffer is full.
+     * </p>
+     *
+     * @param primitive The primitive.
+     * @return this
+     * @since 1.6.0
+     */
+    public Tesselator3 init(int primitive) {
         clear();
+        this.primitive = primitive;
         hasColor = false;
         hasTexture = false;
         return this;
     }
 
+    /**
+     * Initialize a batch that will be {@link #bake() baked}. The buffer
+     * grows instead of drawing partial batches, so no vertex is lost.
+     *
+     * @param primitive The primitive of the baked geometry.
+     * @return this
+     * @since 1.6.0
+     */
+    public Tesselator3 initBake(int primitive) {
+        init(primitive);
+        baking = true;
+        return this;
+    }
+
     @Override
     public Tesselator3 color(final float r,
                              final float g,
                              final float b,
                              final float a) {
-        hasColor = true;
+        if (fixedFormat == null && !hasColor) {
+            if (format != null) {
+                throw new IllegalStateException("Color must be set before the first vertex of the batch");
+            }
+            hasColor = true;
+        }
         this.r = r;
         this.g = g;
         this.b = b;
@@ -129,7 +311,12 @@ public class Tesselator3 implements ITesselator {
     @Override
     public Tesselator3 tex(final float u,
                            final float v) {
-        hasTexture = true;
+        if (fixedFormat == null && !hasTexture) {
+            if (format != null) {
+                throw new IllegalStateException("Texture coordinates must be set before the first vertex of the batch");
+            }
+            hasTexture = true;
+        }
         this.u = u;
         this.v = v;
         return this;
@@ -148,55 +335,91 @@ public class Tesselator3 implements ITesselator {
     public Tesselator3 vertex(final float x,
                               final float y,
                               final float z) {
-        array[pos++] = x;
-        array[pos++] = y;
-        array[pos++] = z;
-        if (hasColor) {
-            array[pos++] = r;
-            array[pos++] = g;
-            array[pos++] = b;
-            array[pos++] = a;
-        }
-        if (hasTexture) {
-            array[pos++] = u;
-            array[pos++] = v;
+        if (pos > limit) {
+            reserve();
         }
+        writer.put(address + pos, x, y, z, r, g, b, a, u, v, 0, 0, 0);
+        pos += stride;
         ++vertices;
         return this;
     }
 
-    protected void setupVbo() {
-        int stride = 3;
-        if (hasColor) {
-            stride += 4;
+    private void reserve() {
+        prepare();
+        while (pos > limit) {
+            overflow();
         }
-        if (hasTexture) {
-            stride += 2;
+    }
+
+    /**
+     * Get the count of vertices that a batch can be split at.
+     *
+     * @return The vertex count of one primitive, or 0 if
+     * the batch can't be split.
+     * @since 1.6.0
+     */
+    protected int batchVertices() {
+        switch (primitive) {
+            case GL_POINTS:
+                return 1;
+            case GL_LINES:
+                return 2;
+            case GL_TRIANGLES:
+                return 3;
+            default:
+                return 0;
         }
-        stride *= Float.BYTES;
+    }
+
+    /**
+     * Called when the buffer is full.
+     *
+     * @since 1.6.0
+     */
+    protected void overflow() {
+        int count = batchVertices();
+        if (fixed || baking || count == 0 || vertices < count) {
+            grow();
+        } else {
+            flush(count);
+        }
+    }
+
+    private void grow() {
+        buffer = memRealloc(buffer, buffer.capacity() * 2);
+        address = memAddress(buffer);
+        limit = buffer.capacity() - stride;
+    }
+
+    /**
+     * Submit the complete primitives and move the rest vertices to the head.
+     *
+     * @param count The vertex count of one primitive.
+     */
+    private void flush(int count) {
+        int rest = vertices % count;
+        int flushed = (vertices - rest) * stride;
+        int total = pos;
+        pos = flushed;
+        vertices -= rest;
+        upload();
+        drawBatch();
+        split = true;
+        // the rest is less than a primitive, so they never overlap
+        memCopy(address + flushed, address, total - flushed);
+        pos = total - flushed;
+        vertices = rest;
+    }
+
+    protected void setupVbo() {
         vbo.bind();
         vbo.data(buffer, fixed ? GL_STATIC_DRAW : GL_DYNAMIC_DRAW);
-        vertex.pointer(3,
-            GL_FLOAT,
-            false,
-            stride,
-            0);
-        vertex.enable();
-        if (hasColor) {
-            color.pointer(4,
-                GL_FLOAT,
-                false,
-                stride,
-                3 * Float.BYTES);
-            color.enable();
-        }
-        if (hasTexture) {
-            texCoord.pointer(2,
-                GL_FLOAT,
-                false,
-                stride,
-                (hasColor ? 7 : 3) * Float.BYTES);
-            texCoord.enable();
+        if (enabledFormat != format) {
+            if (enabledFormat != null) {
+                enabledFormat.disable();
+            }
+            format.enable();
+            enabledFormat = format;
         }
         vbo.unbind();
     }
@@ -205,10 +428,51 @@ public class Tesselator3 implements ITesselator {
         glDrawArrays(primitive, 0, vertices);
     }
 
+    /**
+     * Render the batch for each instance.
+     *
+     * @param primitive The primitive.
+     * @param instances The instance count.
+     * @since 1.6.0
+     */
+    protected void renderInstanced(int primitive, int instances) {
+        glDrawArraysInstanced(primitive, 0, vertices, instances);
+    }
+
+    /**
+     * Get the vertex format of current batch.
+     *
+     * @return the vertex format, or {@code null} if no vertex is added yet
+     * @since 1.6.0
+     */
+    public VertexFormat getVertexFormat() {
+        return format;
+    }
+
     public void setMatrix(final Matrix4fc mvp) {
         this.mvp = mvp;
     }
 
+    /**
+     * Get the count of draw calls issued since last reset, including the
+     * partial batches.
+     *
+     * @return the count of draw calls
+     * @since 1.6.0
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Reset the count of draw calls.
+     *
+     * @since 1.6.0
+     */
+    public void resetDrawCalls() {
+        drawCalls = 0;
+    }
+
     @Override
     public Tesselator3 draw() {
         return draw(GL_TRIANGLES);
@@ -221,37 +485,246 @@ public class Tesselator3 implements ITesselator {
      */
     @Override
     public Tesselator3 draw(int primitive) {
+        this.primitive = primitive;
         if (!fixed || !rendered) {
-            buffer.clear();
-            buffer.put(array, 0, pos);
-            buffer.flip();
-            vao.bind();
-            setupVbo();
-            vao.unbind();
+            upload();
         }
         rendered = true;
+        drawBatch();
+        if (!fixed) {
+            clear();
+        }
+        return this;
+    }
+
+    /**
+     * Allocate the buffer freed by {@link #bake()} and choose the format.
+     */
+    private void prepare() {
+        if (buffer == null) {
+            allocate();
+            if (format != null) {
+                limit = buffer.capacity() - stride;
+            }
+        }
+        if (format == null) {
+            lock(dynamicFormat(hasColor, hasTexture, packing));
+        }
+    }
+
+    /**
+     * Draw the batch once for each instance.
+     * <p>
+     * The matrix set by {@link #setMatrix(Matrix4fc)} is used as the view
+     * projection matrix. Partial batches submitted when the buffer was full
+     * are not instanced, so make sure the batch fits, or use a fixed
+     * tesselator.
+     * </p>
+     *
+     * @param primitive The primitive.
+     * @param instances The instances.
+     * @return this
+     * @since 1.6.0
+     */
+    public Tesselator3 drawInstanced(int primitive, InstanceBuffer instances) {
+        this.primitive = primitive;
+        if (!fixed || !rendered) {
+            upload();
+        }
+        rendered = true;
+        drawBatch(instances);
+        if (!fixed) {
+            clear();
+        }
+        return this;
+    }
+
+    private void upload() {
+        prepare();
+        buffer.limit(pos);
+        vao.bind();
+        setupVbo();
+        vao.unbind();
+    }
+
+    private void drawBatch() {
+        drawBatch(null);
+    }
+
+    private void drawBatch(InstanceBuffer instances) {
+        GLProgram program = TesselatorProgramManager.putOrGet(format.hasColor(),
+            format.hasTexCoord(),
+            instances != null);
         program.bind();
         program.setUniformMat4("mvp", mvp);
-        program.setUniform("hasColor", hasColor);
-        program.setUniform("hasTexture", hasTexture);
-        program.setUniform("sampler", 0);
-        if (hasTexture) {
+        if (format.hasTexCoord()) {
             glActiveTexture(GL_TEXTURE0);
         }
         vao.bind();
-        render(primitive);
+        if (instances != null) {
+            // the program always reads the tint
+            if (!instances.hasTint()) {
+                glVertexAttrib4f(InstanceBuffer.TINT_INDEX, 1, 1, 1, 1);
+            }
+            instances.enable();
+            renderInstanced(primitive, instances.getCount());
+            instances.disable();
+        } else {
+            render(primitive);
+        }
         vao.unbind();
         program.unbind();
-        if (!fixed) {
-            clear();
+        ++drawCalls;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.6.0
+     */
+    @Override
+    public Tesselator3 draw(RecordedBatch batch) {
+        init(batch.getPrimitive());
+        putBatch(batch);
+        return draw(batch.getPrimitive());
+    }
+
+    /**
+     * Add the vertices of a recorded batch without calling
+     * {@link #vertex(float, float, float)} for each one.
+     * <p>
+     * If the batch starts the layout, the vertices are copied in bulk when
+     * the format is unpacked floats, which is the layout of the batch;
+     * otherwise they are written by the format. A batch added after other
+     * vertices is replayed vertex by vertex.
+     * </p>
+     *
+     * @param batch The batch.
+     * @since 1.6.0
+     */
+    protected void putBatch(RecordedBatch batch) {
+        boolean colored = batch.isColored();
+        boolean textured = batch.isTextured();
+        if (fixedFormat == null) {
+            if (format != null) {
+                batch.replay(this);
+                return;
+            }
+            hasColor = colored;
+            hasTexture = textured;
         }
-        return this;
+        prepare();
+        float[] data = batch.array();
+        int floats = batch.getStride();
+        int count = batch.getVertexCount();
+        boolean copy = format == dynamicFormat(colored, textured, 0);
+        for (int i = 0; i < count; ) {
+            if (pos > limit) {
+                reserve();
+            }
+            int n = Math.min(count - i, (limit - pos) / stride + 1);
+            if (copy) {
+                memFloatBuffer(address + pos, n * floats).put(data, i * floats, n * floats);
+                pos += n * stride;
+            } else {
+                for (int j = 0, p = i * floats; j < n; j++, p += floats) {
+                    int q = p + 3;
+                    if (colored) {
+                        r = data[q];
+                        g = data[q + 1];
+                        b = data[q + 2];
+                        a = data[q + 3];
+                        q += 4;
+                    }
+                    if (textured) {
+                        u = data[q];
+                        v = data[q + 1];
+                    }
+                    writer.put(address + pos, data[p], data[p + 1], data[p + 2], r, g, b, a, u, v, 0, 0, 0);
+                    pos += stride;
+                }
+            }
+            vertices += n;
+            i += n;
+        }
+        if (copy && count > 0) {
+            // keep the current attributes of the last vertex, as a replay does
+            int q = (count - 1) * floats + 3;
+            if (colored) {
+                r = data[q];
+                g = data[q + 1];
+                b = data[q + 2];
+                a = data[q + 3];
+                q += 4;
+            }
+            if (textured) {
+                u = data[q];
+                v = data[q + 1];
+            }
+        }
+    }
+
+    /**
+     * Bake the vertices added since {@link #init(int)} into standalone
+     * geometry, and free the buffer.
+     * <p>
+     * The geometry is drawn with the primitive given to {@link #init(int)},
+     * or triangles after {@link #init()}.
+     * Start the batch with {@link #initBake(int)} so a full buffer grows;
+     * a batch that already drew a partial batch can't be baked, as the
+     * drawn vertices are gone.
+     * The buffer is allocated again by the next vertex, so many pieces can be
+     * baked through one tesselator without keeping the memory resident.
+     * </p>
+     *
+     * @return the baked geometry
+     * @throws IllegalStateException if a partial batch was drawn
+     * @since 1.6.0
+     */
+    public BakedGeometry bake() {
+        if (split) {
+            throw new IllegalStateException("Can't bake a batch that was partly drawn; start it with initBake");
+        }
+        prepare();
+        buffer.limit(pos);
+        BakedGeometry geometry = new BakedGeometry(format,
+            primitive == UNKNOWN_PRIMITIVE ? GL_TRIANGLES : primitive,
+            vertices,
+            buffer);
+        bakeIndices(geometry);
+        memFree(buffer);
+        buffer = null;
+        address = NULL;
+        limit = -1;
+        rendered = false;
+        clear();
+        return geometry;
+    }
+
+    /**
+     * Called by {@link #bake()} to set the indices of the geometry.
+     *
+     * @param geometry The geometry being baked.
+     * @since 1.6.0
+     */
+    protected void bakeIndices(BakedGeometry geometry) {
+    }
+
+    /**
+     * Free the programs shared by all tesselators.
+     * <p>
+     * Call this after freeing all tesselators.
+     * </p>
+     *
+     * @since 1.6.0
+     */
+    public static void freePrograms() {
+        TesselatorProgramManager.free();
     }
 
     @Override
     public void free() {
         memFree(buffer);
-        program.close();
         vbo.free();
         vao.free();
     }
@@ -25,8 +25,8 @@
 
 package org.overrun.glutils;
 
-import static org.lwjgl.opengl.GL15.glDeleteBuffers;
 import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL30.glDeleteVertexArrays;
 import static org.lwjgl.opengl.GL30.glGenVertexArrays;
 
 /**
@@ -45,6 +45,6 @@ public class Vao {
     }
 
     public void free() {
-        glDeleteBuffers(id);
+        glDeleteVertexArrays(id);
     }
 }
@@ -27,6 +27,7 @@ package org.overrun.glutils;
 
 import org.lwjgl.opengl.*;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 
 import static org.lwjgl.opengl.GL15.*;
@@ -112,6 +113,18 @@ public class Vbo {
         glBufferData(target, data, usage);
     }
 
+    /**
+     * Set data.
+     *
+     * @param data  The data.
+     * @param usage The usage of the data.
+     * @since 1.6.0
+     */
+    public void data(final ByteBuffer data,
+                     final int usage) {
+        glBufferData(target, data, usage);
+    }
+
     /**
      * Set data.
      *
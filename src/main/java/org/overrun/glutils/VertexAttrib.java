@@ -25,7 +25,7 @@
 
 package org.overrun.glutils;
 
-import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL33.*;
 
 /**
  * @author squid233
@@ -58,4 +58,31 @@ public class VertexAttrib {
             stride,
             pointer);
     }
+
+    /**
+     * Set the pointer from an element of a vertex format.
+     *
+     * @param element The element.
+     * @param stride  The stride of the vertex format.
+     * @since 1.6.0
+     */
+    public void pointer(final VertexFormat.Element element,
+                        final int stride) {
+        pointer(element.size,
+            element.type,
+            element.normalized,
+            stride,
+            element.offset);
+    }
+
+    /**
+     * Set the divisor for instanced drawing.
+     *
+     * @param divisor The count of instances that share a value, or 0 to
+     *                advance per vertex.
+     * @since 1.6.0
+     */
+    public void divisor(final int divisor) {
+        glVertexAttribDivisor(index, divisor);
+    }
 }
@@ -0,0 +1,583 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.system.MemoryUtil.*;
+import static org.overrun.glutils.math.HalfFloat.toHalf;
+
+/**
+ * An interleaved vertex layout.
+ * <p>
+ * The elements are stored in the order of position, color, texture
+ * coordinate and normal, each aligned to 4 bytes. The writer is composed once
+ * from the element types, so writing a vertex never checks the layout.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class VertexFormat {
+    private static final ElementWriter NOP = (p, x, y, z, w) -> {
+    };
+    /**
+     * float positions
+     */
+    public static final VertexFormat POSITION = builder()
+        .position(GL_FLOAT)
+        .build();
+    /**
+     * float positions and colors
+     */
+    public static final VertexFormat POSITION_COLOR = builder()
+        .position(GL_FLOAT)
+        .color(GL_FLOAT)
+        .build();
+    /**
+     * float positions and texture coordinates
+     */
+    public static final VertexFormat POSITION_TEX = builder()
+        .position(GL_FLOAT)
+        .texCoord(GL_FLOAT)
+        .build();
+    /**
+     * float positions, colors and texture coordinates
+     */
+    public static final VertexFormat POSITION_COLOR_TEX = builder()
+        .position(GL_FLOAT)
+        .color(GL_FLOAT)
+        .texCoord(GL_FLOAT)
+        .build();
+    private final Element position;
+    private final Element color;
+    private final Element texCoord;
+    private final Element normal;
+    private final List<Element> elements;
+    private final int stride;
+    private final VertexWriter writer;
+
+    /**
+     * The usage of an element.
+     */
+    public enum Usage {
+        POSITION(0, 3),
+        COLOR(1, 4),
+        TEX_COORD(2, 2),
+        NORMAL(3, 3);
+
+        /**
+         * the default attribute index
+         */
+        public final int index;
+        /**
+         * the component count
+         */
+        public final int size;
+
+        Usage(int index, int size) {
+            this.index = index;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Writes one element of a vertex. Unused components are ignored.
+     */
+    @FunctionalInterface
+    public interface ElementWriter {
+        void put(long address, float x, float y, float z, float w);
+    }
+
+    /**
+     * Writes a whole vertex. Components of absent elements are ignored.
+     */
+    @FunctionalInterface
+    public interface VertexWriter {
+        void put(long address,
+                 float x, float y, float z,
+                 float r, float g, float b, float a,
+                 float u, float v,
+                 float nx, float ny, float nz);
+    }
+
+    /**
+     * An attribute in the format.
+     */
+    public static class Element {
+        public final Usage usage;
+        public final int index;
+        public final int size;
+        public final int type;
+        public final boolean normalized;
+        public final int offset;
+        /**
+         * the byte count including padding
+         */
+        public final int bytes;
+        public final ElementWriter writer;
+
+        private Element(Usage usage,
+                        int index,
+                        int type,
+                        int offset) {
+            this.usage = usage;
+            this.index = index;
+            this.type = type;
+            this.offset = offset;
+            size = usage.size;
+            normalized = type != GL_FLOAT && type != GL_HALF_FLOAT;
+            bytes = (size * typeBytes(type) + 3) & ~3;
+            writer = writer(type, size);
+        }
+    }
+
+    private VertexFormat(Builder builder) {
+        List<Element> list = new ArrayList<>(4);
+        int offset = 0;
+        position = new Element(Usage.POSITION,
+            builder.positionIndex,
+            builder.positionType,
+            offset);
+        list.add(position);
+        offset += position.bytes;
+        if (builder.colorType != 0) {
+            color = new Element(Usage.COLOR,
+                builder.colorIndex,
+                builder.colorType,
+                offset);
+            list.add(color);
+            offset += color.bytes;
+        } else {
+            color = null;
+        }
+        if (builder.texCoordType != 0) {
+            texCoord = new Element(Usage.TEX_COORD,
+                builder.texCoordIndex,
+                builder.texCoordType,
+                offset);
+            list.add(texCoord);
+            offset += texCoord.bytes;
+        } else {
+            texCoord = null;
+        }
+        if (builder.normalType != 0) {
+            normal = new Element(Usage.NORMAL,
+                builder.normalIndex,
+                builder.normalType,
+                offset);
+            list.add(normal);
+            offset += normal.bytes;
+        } else {
+            normal = null;
+        }
+        elements = Collections.unmodifiableList(list);
+        stride = offset;
+        writer = composeWriter();
+    }
+
+    private VertexWriter composeWriter() {
+        final ElementWriter pw = position.writer;
+        if (color == null && texCoord == null && normal == null) {
+            return (p, x, y, z, r, g, b, a, u, v, nx, ny, nz) ->
+                pw.put(p, x, y, z, 1);
+        }
+        final ElementWriter cw = color != null ? color.writer : NOP;
+        final ElementWriter tw = texCoord != null ? texCoord.writer : NOP;
+        final ElementWriter nw = normal != null ? normal.writer : NOP;
+        final int co = color != null ? color.offset : 0;
+        final int to = texCoord != null ? texCoord.offset : 0;
+        final int no = normal != null ? normal.offset : 0;
+        return (p, x, y, z, r, g, b, a, u, v, nx, ny, nz) -> {
+            pw.put(p, x, y, z, 1);
+            cw.put(p + co, r, g, b, a);
+            tw.put(p + to, u, v, 0, 1);
+            nw.put(p + no, nx, ny, nz, 0);
+        };
+    }
+
+    /**
+     * construct builder
+     *
+     * @return vertex format builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static int typeBytes(int type) {
+        switch (type) {
+            case GL_FLOAT:
+                return 4;
+            case GL_HALF_FLOAT:
+            case GL_UNSIGNED_SHORT:
+            case GL_SHORT:
+                return 2;
+            case GL_UNSIGNED_BYTE:
+            case GL_BYTE:
+                return 1;
+            default:
+                throw new IllegalArgumentException("Unsupported element type: " + type);
+        }
+    }
+
+    private static ElementWriter writer(int type, int size) {
+        switch (type) {
+            case GL_FLOAT:
+                switch (size) {
+                    case 2:
+                        return (p, x, y, z, w) -> {
+                            memPutFloat(p, x);
+                            memPutFloat(p + 4, y);
+                        };
+                    case 3:
+                        return (p, x, y, z, w) -> {
+                            memPutFloat(p, x);
+                            memPutFloat(p + 4, y);
+                            memPutFloat(p + 8, z);
+                        };
+                    default:
+                        return (p, x, y, z, w) -> {
+                            memPutFloat(p, x);
+                            memPutFloat(p + 4, y);
+                            memPutFloat(p + 8, z);
+                            memPutFloat(p + 12, w);
+                        };
+                }
+            case GL_HALF_FLOAT:
+                switch (size) {
+                    case 2:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toHalf(x));
+                            memPutShort(p + 2, toHalf(y));
+                        };
+                    case 3:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toHalf(x));
+                            memPutShort(p + 2, toHalf(y));
+                            memPutShort(p + 4, toHalf(z));
+                        };
+                    default:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toHalf(x));
+                            memPutShort(p + 2, toHalf(y));
+                            memPutShort(p + 4, toHalf(z));
+                            memPutShort(p + 6, toHalf(w));
+                        };
+                }
+            case GL_UNSIGNED_SHORT:
+                switch (size) {
+                    case 2:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toUShort(x));
+                            memPutShort(p + 2, toUShort(y));
+                        };
+                    case 3:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toUShort(x));
+                            memPutShort(p + 2, toUShort(y));
+                            memPutShort(p + 4, toUShort(z));
+                        };
+                    default:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toUShort(x));
+                            memPutShort(p + 2, toUShort(y));
+                            memPutShort(p + 4, toUShort(z));
+                            memPutShort(p + 6, toUShort(w));
+                        };
+                }
+            case GL_SHORT:
+                switch (size) {
+                    case 2:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toShort(x));
+                            memPutShort(p + 2, toShort(y));
+                        };
+                    case 3:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toShort(x));
+                            memPutShort(p + 2, toShort(y));
+                            memPutShort(p + 4, toShort(z));
+                        };
+                    default:
+                        return (p, x, y, z, w) -> {
+                            memPutShort(p, toShort(x));
+                            memPutShort(p + 2, toShort(y));
+                            memPutShort(p + 4, toShort(z));
+                            memPutShort(p + 6, toShort(w));
+                        };
+                }
+            case GL_UNSIGNED_BYTE:
+                switch (size) {
+                    case 2:
+                        return (p, x, y, z, w) -> {
+                            memPutByte(p, toUByte(x));
+                            memPutByte(p + 1, toUByte(y));
+                        };
+                    case 3:
+                        return (p, x, y, z, w) -> {
+                            memPutByte(p, toUByte(x));
+                            memPutByte(p + 1, toUByte(y));
+                            memPutByte(p + 2, toUByte(z));
+                        };
+                    default:
+                        return (p, x, y, z, w) -> {
+                            memPutByte(p, toUByte(x));
+                            memPutByte(p + 1, toUByte(y));
+                            memPutByte(p + 2, toUByte(z));
+                            memPutByte(p + 3, toUByte(w));
+                        };
+                }
+            case GL_BYTE:
+                switch (size) {
+                    case 2:
+                        return (p, x, y, z, w) -> {
+                            memPutByte(p, toByte(x));
+                            memPutByte(p + 1, toByte(y));
+                        };
+                    case 3:
+                        return (p, x, y, z, w) -> {
+                            memPutByte(p, toByte(x));
+                            memPutByte(p + 1, toByte(y));
+                            memPutByte(p + 2, toByte(z));
+                        };
+                    default:
+                        return (p, x, y, z, w) -> {
+                            memPutByte(p, toByte(x));
+                            memPutByte(p + 1, toByte(y));
+                            memPutByte(p + 2, toByte(z));
+                            memPutByte(p + 3, toByte(w));
+                        };
+                }
+            default:
+                throw new IllegalArgumentException("Unsupported element type: " + type);
+        }
+    }
+
+    private static byte toUByte(float f) {
+        return (byte) (Math.min(Math.max(f, 0), 1) * 255 + 0.5f);
+    }
+
+    private static byte toByte(float f) {
+        return (byte) Math.round(Math.min(Math.max(f, -1), 1) * 127);
+    }
+
+    private static short toUShort(float f) {
+        return (short) (Math.min(Math.max(f, 0), 1) * 65535 + 0.5f);
+    }
+
+    private static short toShort(float f) {
+        return (short) Math.round(Math.min(Math.max(f, -1), 1) * 32767);
+    }
+
+    /**
+     * Set the attribute pointers of all elements and enable them.
+     * <p>
+     * The vertex buffer must be bound.
+     * </p>
+     */
+    public void enable() {
+        for (Element e : elements) {
+            VertexAttrib attrib = new VertexAttrib(e.index);
+            attrib.pointer(e, stride);
+            attrib.enable();
+        }
+    }
+
+    /**
+     * Disable the attributes of all elements.
+     */
+    public void disable() {
+        for (Element e : elements) {
+            glDisableVertexAttribArray(e.index);
+        }
+    }
+
+    public Element getPosition() {
+        return position;
+    }
+
+    public Element getColor() {
+        return color;
+    }
+
+    public Element getTexCoord() {
+        return texCoord;
+    }
+
+    public Element getNormal() {
+        return normal;
+    }
+
+    public boolean hasColor() {
+        return color != null;
+    }
+
+    public boolean hasTexCoord() {
+        return texCoord != null;
+    }
+
+    public boolean hasNormal() {
+        return normal != null;
+    }
+
+    public List<Element> getElements() {
+        return elements;
+    }
+
+    /**
+     * Get the byte count per vertex.
+     *
+     * @return the stride
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    public VertexWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * vertex format builder
+     */
+    public static class Builder {
+        private int positionIndex = Usage.POSITION.index;
+        private int positionType = GL_FLOAT;
+        private int colorIndex = Usage.COLOR.index;
+        private int colorType;
+        private int texCoordIndex = Usage.TEX_COORD.index;
+        private int texCoordType;
+        private int normalIndex = Usage.NORMAL.index;
+        private int normalType;
+
+        /**
+         * set position type
+         *
+         * @param type {@code GL_FLOAT} or {@code GL_HALF_FLOAT}
+         * @return this
+         */
+        public Builder position(int type) {
+            return position(Usage.POSITION.index, type);
+        }
+
+        /**
+         * set position attribute
+         *
+         * @param index attribute index
+         * @param type  {@code GL_FLOAT} or {@code GL_HALF_FLOAT}
+         * @return this
+         */
+        public Builder position(int index, int type) {
+            positionIndex = index;
+            positionType = type;
+            return this;
+        }
+
+        /**
+         * set color type
+         *
+         * @param type {@code GL_FLOAT} or {@code GL_UNSIGNED_BYTE}
+         * @return this
+         */
+        public Builder color(int type) {
+            return color(Usage.COLOR.index, type);
+        }
+
+        /**
+         * set color attribute
+         *
+         * @param index attribute index
+         * @param type  {@code GL_FLOAT} or {@code GL_UNSIGNED_BYTE}
+         * @return this
+         */
+        public Builder color(int index, int type) {
+            colorIndex = index;
+            colorType = type;
+            return this;
+        }
+
+        /**
+         * set texture coordinate type
+         *
+         * @param type {@code GL_FLOAT}, {@code GL_HALF_FLOAT}
+         *             or {@code GL_UNSIGNED_SHORT}
+         * @return this
+         */
+        public Builder texCoord(int type) {
+            return texCoord(Usage.TEX_COORD.index, type);
+        }
+
+        /**
+         * set texture coordinate attribute
+         *
+         * @param index attribute index
+         * @param type  {@code GL_FLOAT}, {@code GL_HALF_FLOAT}
+         *              or {@code GL_UNSIGNED_SHORT}
+         * @return this
+         */
+        public Builder texCoord(int index, int type) {
+            texCoordIndex = index;
+            texCoordType = type;
+            return this;
+        }
+
+        /**
+         * set normal type
+         *
+         * @param type {@code GL_FLOAT} or {@code GL_BYTE}
+         * @return this
+         */
+        public Builder normal(int type) {
+            return normal(Usage.NORMAL.index, type);
+        }
+
+        /**
+         * set normal attribute
+         *
+         * @param index attribute index
+         * @param type  {@code GL_FLOAT} or {@code GL_BYTE}
+         * @return this
+         */
+        public Builder normal(int index, int type) {
+            normalIndex = index;
+            normalType = type;
+            return this;
+        }
+
+        /**
+         * build vertex format
+         *
+         * @return vertex format
+         */
+        public VertexFormat build() {
+            return new VertexFormat(this);
+        }
+    }
+}
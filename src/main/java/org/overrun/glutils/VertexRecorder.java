@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+
+/**
+ * An {@link ITesselator} that only records vertices to the heap, without
+ * any GL calls.
+ * <p>
+ * Like {@link Tesselator3}, the color and texture coordinates must be set
+ * before the first vertex of a batch, so all vertices have the same layout.
+ * </p>
+ * <p>
+ * Each thread has its own recorder from {@link #get()}, so worker threads can
+ * build geometry concurrently, then hand the {@link RecordedBatch batches}
+ * to the render thread by a {@link RecordedBatchQueue}.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class VertexRecorder implements ITesselator {
+    private static final ThreadLocal<VertexRecorder> LOCAL =
+        ThreadLocal.withInitial(VertexRecorder::new);
+    private final List<RecordedBatch> batches = new ArrayList<>();
+    private float[] array = new float[Tesselator3.VERTEX_SIZE * 1024];
+    private float r, g, b, a, u, v;
+    private int vertices;
+    private int pos;
+    private boolean hasColor;
+    private boolean hasTexture;
+
+    /**
+     * Get the recorder of current thread.
+     *
+     * @return the recorder
+     */
+    public static VertexRecorder get() {
+        return LOCAL.get();
+    }
+
+    private void clear() {
+        vertices = 0;
+        pos = 0;
+    }
+
+    @Override
+    public VertexRecorder init() {
+        clear();
+        hasColor = false;
+        hasTexture = false;
+        return this;
+    }
+
+    @Override
+    public VertexRecorder color(final float r,
+                                final float g,
+                                final float b,
+                                final float a) {
+        if (!hasColor) {
+            if (vertices > 0) {
+                throw new IllegalStateException("Color must be set before the first vertex of the batch");
+            }
+            hasColor = true;
+        }
+        this.r = r;
+        this.g = g;
+        this.b = b;
+        this.a = a;
+        return this;
+    }
+
+    @Override
+    public VertexRecorder color(final float r,
+                                final float g,
+                                final float b) {
+        ITesselator.super.color(r, g, b);
+        return this;
+    }
+
+    @Override
+    public VertexRecorder tex(final float u,
+                              final float v) {
+        if (!hasTexture) {
+            if (vertices > 0) {
+                throw new IllegalStateException("Texture coordinates must be set before the first vertex of the batch");
+            }
+            hasTexture = true;
+        }
+        this.u = u;
+        this.v = v;
+        return this;
+    }
+
+    @Override
+    public VertexRecorder vertexUV(final float x,
+                                   final float y,
+                                   final float z,
+                                   final float u,
+                                   final float v) {
+        return tex(u, v).vertex(x, y, z);
+    }
+
+    @Override
+    public VertexRecorder vertex(final float x,
+                                 final float y,
+                                 final float z) {
+        if (pos + Tesselator3.VERTEX_SIZE > array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[pos++] = x;
+        array[pos++] = y;
+        array[pos++] = z;
+        if (hasColor) {
+            array[pos++] = r;
+            array[pos++] = g;
+            array[pos++] = b;
+            array[pos++] = a;
+        }
+        if (hasTexture) {
+            array[pos++] = u;
+            array[pos++] = v;
+        }
+        ++vertices;
+        return this;
+    }
+
+    @Override
+    public VertexRecorder draw() {
+        return draw(GL_TRIANGLES);
+    }
+
+    /**
+     * End the batch and record it.
+     *
+     * @param primitive The primitive.
+     * @return this
+     */
+    @Override
+    public VertexRecorder draw(int primitive) {
+        if (vertices > 0) {
+            batches.add(new RecordedBatch(primitive,
+                hasColor,
+                hasTexture,
+                vertices,
+                Arrays.copyOf(array, pos)));
+        }
+        clear();
+        return this;
+    }
+
+    /**
+     * Get the recorded batches in order and reset this recorder.
+     *
+     * @return the batches
+     */
+    public List<RecordedBatch> finish() {
+        List<RecordedBatch> list = new ArrayList<>(batches);
+        batches.clear();
+        clear();
+        return list;
+    }
+
+    /**
+     * Discard all recorded batches.
+     */
+    @Override
+    public void free() {
+        batches.clear();
+        clear();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.internal;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * The static element buffers shared by all quad batches.
+ * <p>
+ * Each quad {@code i} is drawn as 2 triangles
+ * {@code 4i, 4i+1, 4i+2, 4i+2, 4i+3, 4i}. The buffers only grow, so
+ * the same buffer object can stay bound to any vertex array.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class QuadIndexBuffer {
+    /**
+     * The max vertex count that can be indexed by unsigned shorts.
+     */
+    public static final int SHORT_MAX_VERTICES = 0x10000;
+    private static final int MIN_QUADS = 1024;
+    private static int shortEbo;
+    private static int shortQuads;
+    private static int intEbo;
+    private static int intQuads;
+
+    /**
+     * Get the index type for the vertex count.
+     *
+     * @param vertexCount the vertex count
+     * @return {@code GL_UNSIGNED_SHORT} or {@code GL_UNSIGNED_INT}
+     */
+    public static int type(int vertexCount) {
+        return vertexCount <= SHORT_MAX_VERTICES
+            ? GL_UNSIGNED_SHORT
+            : GL_UNSIGNED_INT;
+    }
+
+    /**
+     * Get the index count for the vertex count.
+     *
+     * @param vertexCount the vertex count
+     * @return the index count
+     */
+    public static int count(int vertexCount) {
+        return vertexCount / 4 * 6;
+    }
+
+    /**
+     * Bind the buffer that can index {@code vertexCount} vertices to
+     * {@code GL_ELEMENT_ARRAY_BUFFER}, and grow it if needed.
+     *
+     * @param vertexCount the vertex count
+     */
+    public static void bind(int vertexCount) {
+        int quads = vertexCount / 4;
+        if (type(vertexCount) == GL_UNSIGNED_SHORT) {
+            if (shortEbo == 0) {
+                shortEbo = glGenBuffers();
+            }
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, shortEbo);
+            if (quads > shortQuads) {
+                shortQuads = Math.min(capacity(quads), SHORT_MAX_VERTICES / 4);
+                ShortBuffer buffer = memAllocShort(shortQuads * 6);
+                fill(buffer, shortQuads);
+                glBufferData(GL_ELEMENT_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
+                memFree(buffer);
+            }
+        } else {
+            if (intEbo == 0) {
+                intEbo = glGenBuffers();
+            }
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, intEbo);
+            if (quads > intQuads) {
+                intQuads = capacity(quads);
+                IntBuffer buffer = memAllocInt(intQuads * 6);
+                fill(buffer, intQuads);
+                glBufferData(GL_ELEMENT_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
+                memFree(buffer);
+            }
+        }
+    }
+
+    private static int capacity(int quads) {
+        int capacity = MIN_QUADS;
+        while (capacity < quads) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Fill the indices of the quads.
+     *
+     * @param buffer the buffer with 6 * quads remaining
+     * @param quads  the quad count
+     */
+    public static void fill(ShortBuffer buffer, int quads) {
+        for (int i = 0, j = 0; i < quads; i++, j += 4) {
+            buffer.put((short) j)
+                .put((short) (j + 1))
+                .put((short) (j + 2))
+                .put((short) (j + 2))
+                .put((short) (j + 3))
+                .put((short) j);
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Fill the indices of the quads.
+     *
+     * @param buffer the buffer with 6 * quads remaining
+     * @param quads  the quad count
+     */
+    public static void fill(IntBuffer buffer, int quads) {
+        for (int i = 0, j = 0; i < quads; i++, j += 4) {
+            buffer.put(j)
+                .put(j + 1)
+                .put(j + 2)
+                .put(j + 2)
+                .put(j + 3)
+                .put(j);
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Free the buffers.
+     */
+    public static void free() {
+        if (shortEbo != 0) {
+            glDeleteBuffers(shortEbo);
+            shortEbo = 0;
+            shortQuads = 0;
+        }
+        if (intEbo != 0) {
+            glDeleteBuffers(intEbo);
+            intEbo = 0;
+            intQuads = 0;
+        }
+    }
+}
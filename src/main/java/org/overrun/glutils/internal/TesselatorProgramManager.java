@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.internal;
+
+import org.overrun.glutils.GLProgram;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.overrun.glutils.internal.MeshManagerConstant.COLORED;
+import static org.overrun.glutils.internal.MeshManagerConstant.TEXTURED;
+
+/**
+ * The programs of {@link org.overrun.glutils.Tesselator3 Tesselator3}.
+ * <p>
+ * One program is compiled lazily for each permutation and shared by all
+ * tesselators, so the fragment shader doesn't branch on uniforms.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class TesselatorProgramManager {
+    private static final Map<Byte, GLProgram> programs = new HashMap<>();
+    /**
+     * Instanced drawing with {@link org.overrun.glutils.InstanceBuffer
+     * InstanceBuffer}; {@code mvp} is the view projection matrix.
+     */
+    public static final byte INSTANCED = 0b10000;
+    private static final String VSH = "layout(location = 0) in vec3 vertex;\n" +
+        "#ifdef HAS_COLOR\n" +
+        "layout(location = 1) in vec4 color;\n" +
+        "#endif\n" +
+        "#ifdef HAS_TEXTURE\n" +
+        "layout(location = 2) in vec2 texCoord;\n" +
+        "out vec2 fragTexCoord;\n" +
+        "#endif\n" +
+        "#ifdef INSTANCED\n" +
+        "layout(location = 4) in mat4 model;\n" +
+        "layout(location = 8) in vec4 tint;\n" +
+        "#endif\n" +
+        "#if defined(HAS_COLOR) || defined(INSTANCED)\n" +
+        "out vec4 fragColor;\n" +
+        "#endif\n" +
+        "uniform mat4 mvp;\n" +
+        "void main() {\n" +
+        "#ifdef INSTANCED\n" +
+        "    gl_Position = mvp * model * vec4(vertex, 1.0);\n" +
+        "#else\n" +
+        "    gl_Position = mvp * vec4(vertex, 1.0);\n" +
+        "#endif\n" +
+        "#if defined(HAS_COLOR) || defined(INSTANCED)\n" +
+        "    fragColor = vec4(1.0, 1.0, 1.0, 1.0);\n" +
+        "#endif\n" +
+        "#ifdef HAS_COLOR\n" +
+        "    fragColor *= color;\n" +
+        "#endif\n" +
+        "#ifdef INSTANCED\n" +
+        "    fragColor *= tint;\n" +
+        "#endif\n" +
+        "#ifdef HAS_TEXTURE\n" +
+        "    fragTexCoord = texCoord;\n" +
+        "#endif\n" +
+        "}";
+    private static final String FSH = "#if defined(HAS_COLOR) || defined(INSTANCED)\n" +
+        "in vec4 fragColor;\n" +
+        "#endif\n" +
+        "#ifdef HAS_TEXTURE\n" +
+        "in vec2 fragTexCoord;\n" +
+        "uniform sampler2D sampler;\n" +
+        "#endif\n" +
+        "out vec4 FragColor;\n" +
+        "void main() {\n" +
+        "    FragColor = vec4(1.0, 1.0, 1.0, 1.0);\n" +
+        "#if defined(HAS_COLOR) || defined(INSTANCED)\n" +
+        "    FragColor *= fragColor;\n" +
+        "#endif\n" +
+        "#ifdef HAS_TEXTURE\n" +
+        "    FragColor *= texture(sampler, fragTexCoord);\n" +
+        "#endif\n" +
+        "}";
+
+    /**
+     * Get the program of the permutation, or compile it if absent.
+     *
+     * @param bit bits that contains 3 bits
+     *            (instanced &lt;&lt; 4
+     *            | colored &lt;&lt; 3
+     *            | textured &lt;&lt; 2)
+     * @return the program
+     */
+    public static GLProgram putOrGet(byte bit) {
+        GLProgram program = programs.get(bit);
+        if (program != null) {
+            return program;
+        }
+        String header = "#version 330\n";
+        if (MeshManagerConstant.colored(bit)) {
+            header += "#define HAS_COLOR\n";
+        }
+        if (MeshManagerConstant.textured(bit)) {
+            header += "#define HAS_TEXTURE\n";
+        }
+        if ((bit & INSTANCED) != 0) {
+            header += "#define INSTANCED\n";
+        }
+        program = new GLProgram();
+        program.createVsh(header + VSH);
+        program.createFsh(header + FSH);
+        program.link();
+        programs.put(bit, program);
+        return program;
+    }
+
+    /**
+     * Get the program of the permutation, or compile it if absent.
+     *
+     * @param colored  enable color
+     * @param textured enable texture
+     * @return the program
+     */
+    public static GLProgram putOrGet(boolean colored,
+                                     boolean textured) {
+        return putOrGet(colored, textured, false);
+    }
+
+    /**
+     * Get the program of the permutation, or compile it if absent.
+     *
+     * @param colored   enable color
+     * @param textured  enable texture
+     * @param instanced enable instancing
+     * @return the program
+     */
+    public static GLProgram putOrGet(boolean colored,
+                                     boolean textured,
+                                     boolean instanced) {
+        byte bit = 0b0000;
+        if (instanced) {
+            bit |= INSTANCED;
+        }
+        if (colored) {
+            bit |= COLORED;
+        }
+        if (textured) {
+            bit |= TEXTURED;
+        }
+        return putOrGet(bit);
+    }
+
+    /**
+     * Free all programs.
+     */
+    public static void free() {
+        for (GLProgram program : programs.values()) {
+            program.close();
+        }
+        programs.clear();
+    }
+}
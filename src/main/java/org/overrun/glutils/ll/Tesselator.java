@@ -26,31 +26,57 @@
 package org.overrun.glutils.ll;
 
 import org.overrun.glutils.ITesselator;
+import org.overrun.glutils.RecordedBatch;
 
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 
 import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.system.MemoryUtil.memAllocFloat;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static org.lwjgl.system.MemoryUtil.*;
 
 /**
  * {@link ITesselator Tesselator} for OpenGL in immediate mode
+ * <p>
+ * When the buffer is full, the vertices of the complete primitives are drawn
+ * as a partial batch if the primitive is given to {@link #init(int)}.
+ * Otherwise, or if the primitive can't be split, the buffer grows.
+ * </p>
  *
  * @author squid233
  * @since 1.6.0
  */
 public class Tesselator implements ITesselator {
     public static final int VERTEX_COUNT = 60000;
-    public static final int MEMORY_USE = (2 + 3 + 3) * VERTEX_COUNT;
+    public static final int VERTEX_SIZE = 2 + 3 + 3;
+    public static final int MEMORY_USE = VERTEX_SIZE * VERTEX_COUNT;
     private static final Tesselator INSTANCE = new Tesselator();
-    private final float[] array = new float[MEMORY_USE];
-    private final FloatBuffer buffer = memAllocFloat(MEMORY_USE);
+    /**
+     * The primitive after {@link #init()} is only known at {@link #draw(int)}.
+     */
+    private static final int UNKNOWN_PRIMITIVE = -1;
+    private float[] array;
+    private FloatBuffer buffer;
     private float r, g, b, u, v;
     private int vertices;
     private int pos;
+    private int primitive = GL_TRIANGLES;
     private boolean hasColor;
     private boolean hasTexture;
 
+    public Tesselator() {
+        this(VERTEX_COUNT);
+    }
+
+    /**
+     * Construct with specified initial capacity.
+     *
+     * @param vertexCount The initial vertex count of the buffer.
+     */
+    public Tesselator(int vertexCount) {
+        array = new float[VERTEX_SIZE * vertexCount];
+        buffer = memAllocFloat(array.length);
+    }
+
     public static Tesselator getInstance() {
         return INSTANCE;
     }
@@ -61,9 +87,29 @@ public class Tesselator implements ITesselator {
         pos = 0;
     }
 
+    /**
+     * Initialize without knowing the primitive, so the buffer grows instead
+     * of splitting the batch when full.
+     *
+     * @return this
+     */
     @Override
     public Tesselator init() {
+        return init(UNKNOWN_PRIMITIVE);
+    }
+
+    /**
+     * Initialize with the primitive that will be drawn.
+     * <p>
+     * The primitive is used to split the batch when the buffer is full.
+     * </p>
+     *
+     * @param primitive The primitive.
+     * @return this
+     */
+    public Tesselator init(int primitive) {
         clear();
+        this.primitive = primitive;
         hasColor = false;
         hasTexture = false;
         return this;
@@ -105,6 +151,9 @@ public class Tesselator implements ITesselator {
     public Tesselator vertex(final float x,
                              final float y,
                              final float z) {
+        if (pos + VERTEX_SIZE > array.length) {
+            overflow();
+        }
         if (hasTexture) {
             array[pos++] = u;
             array[pos++] = v;
@@ -126,8 +175,55 @@ public class Tesselator implements ITesselator {
         return draw(GL_TRIANGLES);
     }
 
+    private int batchVertices() {
+        switch (primitive) {
+            case GL_POINTS:
+                return 1;
+            case GL_LINES:
+                return 2;
+            case GL_TRIANGLES:
+                return 3;
+            case GL_QUADS:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private void overflow() {
+        int count = batchVertices();
+        if (count == 0 || vertices < count) {
+            array = Arrays.copyOf(array, array.length * 2);
+            buffer = memRealloc(buffer, array.length);
+            return;
+        }
+        int stride = 3;
+        if (hasColor) {
+            stride += 3;
+        }
+        if (hasTexture) {
+            stride += 2;
+        }
+        int rest = vertices % count;
+        int flushed = (vertices - rest) * stride;
+        int total = pos;
+        pos = flushed;
+        vertices -= rest;
+        drawBatch();
+        System.arraycopy(array, flushed, array, 0, total - flushed);
+        pos = total - flushed;
+        vertices = rest;
+    }
+
     @Override
     public Tesselator draw(int primitive) {
+        this.primitive = primitive;
+        drawBatch();
+        clear();
+        return this;
+    }
+
+    private void drawBatch() {
         buffer.clear();
         buffer.put(array, 0, pos);
         buffer.flip();
@@ -160,9 +256,16 @@ public class Tesselator implements ITesselator {
         if (hasColor) {
             glDisableClientState(GL_COLOR_ARRAY);
         }
+    }
 
-        clear();
-        return this;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Tesselator draw(RecordedBatch batch) {
+        init(batch.getPrimitive());
+        batch.replay(this);
+        return draw(batch.getPrimitive());
     }
 
     @Override
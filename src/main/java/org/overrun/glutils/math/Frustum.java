@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.math;
+
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4fc;
+
+/**
+ * A view frustum to cull bounding volumes, built from a projection-view
+ * matrix. To test bounds in model space, build it from the
+ * projection-view-model matrix.
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class Frustum {
+    private final FrustumIntersection intersection = new FrustumIntersection();
+
+    /**
+     * construct an empty frustum; call {@link #set(Matrix4fc)} before testing
+     */
+    public Frustum() {
+    }
+
+    /**
+     * construct
+     *
+     * @param projView the projection-view matrix
+     */
+    public Frustum(Matrix4fc projView) {
+        set(projView);
+    }
+
+    /**
+     * Update the planes.
+     *
+     * @param projView the projection-view matrix
+     * @return this
+     */
+    public Frustum set(Matrix4fc projView) {
+        intersection.set(projView);
+        return this;
+    }
+
+    /**
+     * Test if a sphere is partly or fully inside.
+     *
+     * @param x the center x
+     * @param y the center y
+     * @param z the center z
+     * @param r the radius
+     * @return {@code false} if fully outside
+     */
+    public boolean testSphere(float x, float y, float z, float r) {
+        return intersection.testSphere(x, y, z, r);
+    }
+
+    /**
+     * Test if an axis-aligned box is partly or fully inside.
+     *
+     * @param minX min x
+     * @param minY min y
+     * @param minZ min z
+     * @param maxX max x
+     * @param maxY max y
+     * @param maxZ max z
+     * @return {@code false} if fully outside
+     */
+    public boolean testAab(float minX, float minY, float minZ,
+                           float maxX, float maxY, float maxZ) {
+        return intersection.testAab(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Test the sphere first, then the box.
+     *
+     * @param minX    min x
+     * @param minY    min y
+     * @param minZ    min z
+     * @param maxX    max x
+     * @param maxY    max y
+     * @param maxZ    max z
+     * @param centerX the sphere center x
+     * @param centerY the sphere center y
+     * @param centerZ the sphere center z
+     * @param radius  the sphere radius
+     * @return {@code false} if fully outside
+     */
+    public boolean testBounds(float minX, float minY, float minZ,
+                              float maxX, float maxY, float maxZ,
+                              float centerX, float centerY, float centerZ,
+                              float radius) {
+        return intersection.testSphere(centerX, centerY, centerZ, radius)
+            && intersection.testAab(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+}
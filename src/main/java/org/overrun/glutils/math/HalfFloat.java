@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.math;
+
+/**
+ * Conversion between 32-bit floats and 16-bit half floats.
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class HalfFloat {
+    /**
+     * Convert a float to a half float, rounded to the nearest, ties to even.
+     * Values too large for a half float become infinity.
+     *
+     * @param f The float value.
+     * @return The bits of the half float.
+     */
+    public static short toHalf(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        int sign = bits >>> 16 & 0x8000;
+        int abs = bits & 0x7fffffff;
+        // NaN or infinity
+        if (abs >= 0x7f800000) {
+            if (abs == 0x7f800000) {
+                return (short) (sign | 0x7c00);
+            }
+            // keep NaN quiet, so it doesn't become infinity
+            return (short) (sign | 0x7e00 | (bits & 0x007fffff) >>> 13);
+        }
+        // round at the last bit of a normalized half; a tie rounds up only if that bit is odd
+        int val = abs + 0x0fff + (abs >>> 13 & 1);
+        // too large, values from 65520 round to infinity
+        if (val >= 0x47800000) {
+            return (short) (sign | 0x7c00);
+        }
+        // normalized
+        if (val >= 0x38800000) {
+            return (short) (sign | val - 0x38000000 >>> 13);
+        }
+        // too small for subnormal
+        if (abs < 0x33000000) {
+            return (short) sign;
+        }
+        // subnormal, rounded the same way at the last bit of the result
+        int shift = 126 - (abs >>> 23);
+        int mantissa = bits & 0x7fffff | 0x800000;
+        return (short) (sign | (mantissa + (1 << shift - 1) - 1 + (mantissa >>> shift & 1))
+            >>> shift);
+    }
+
+    /**
+     * Convert a half float to a float.
+     *
+     * @param half The bits of the half float.
+     * @return The float value.
+     */
+    public static float toFloat(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exp = bits & 0x7c00;
+        int mantissa = bits & 0x03ff;
+        if (exp == 0x7c00) {
+            // NaN or infinity
+            return Float.intBitsToFloat(sign | 0x7f800000 | mantissa << 13);
+        }
+        if (exp == 0) {
+            // zero or subnormal
+            float f = mantissa / 16777216.0f;
+            return sign != 0 ? -f : f;
+        }
+        return Float.intBitsToFloat(sign | (exp + 0x1c000 | mantissa) << 13);
+    }
+}
@@ -25,9 +25,15 @@
 
 package org.overrun.glutils.mesh;
 
+import org.joml.Vector3f;
 import org.overrun.glutils.light.Material;
+import org.overrun.glutils.math.Frustum;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 
 import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.system.MemoryUtil.*;
 
 /**
  * @author squid233
@@ -164,6 +170,96 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      * vertex count
      */
     protected int vertexCount;
+    /**
+     * vertices changed since last upload
+     *
+     * @since 1.6.0
+     */
+    protected boolean vertDirty;
+    /**
+     * colors changed since last upload
+     *
+     * @since 1.6.0
+     */
+    protected boolean colorDirty;
+    /**
+     * texture coordinates changed since last upload
+     *
+     * @since 1.6.0
+     */
+    protected boolean texDirty;
+    /**
+     * normals changed since last upload
+     *
+     * @since 1.6.0
+     */
+    protected boolean normalDirty;
+    /**
+     * indices changed since last upload
+     *
+     * @since 1.6.0
+     */
+    protected boolean indexDirty;
+    /**
+     * the type of uploaded indices
+     *
+     * @since 1.6.0
+     */
+    protected int indexType = GL_UNSIGNED_INT;
+    /**
+     * store all attributes in {@link #vertVbo}
+     *
+     * @since 1.6.0
+     */
+    protected boolean interleaved;
+    /**
+     * vertex offset in bytes
+     *
+     * @since 1.6.0
+     */
+    protected long vertOffset;
+    /**
+     * color offset in bytes
+     *
+     * @since 1.6.0
+     */
+    protected long colorOffset;
+    /**
+     * texture coordinate offset in bytes
+     *
+     * @since 1.6.0
+     */
+    protected long texOffset;
+    /**
+     * normal offset in bytes
+     *
+     * @since 1.6.0
+     */
+    protected long normalOffset;
+    /**
+     * the first index of the drawn range
+     *
+     * @since 1.6.0
+     */
+    protected int indexFirst;
+    private int[] lodFirst;
+    private int[] lodCount;
+    private float[] lodError;
+    private int lod;
+    private final DirtyRanges vertRanges = new DirtyRanges();
+    private final DirtyRanges colorRanges = new DirtyRanges();
+    private final DirtyRanges texRanges = new DirtyRanges();
+    private final DirtyRanges normalRanges = new DirtyRanges();
+    private final DirtyRanges interleavedRanges = new DirtyRanges();
+    private boolean rangeDirty;
+    private boolean boundsDirty = true;
+    private float minX, minY, minZ, maxX, maxY, maxZ;
+    private float centerX, centerY, centerZ, radius;
+    private int vertUploaded = -1;
+    private int colorUploaded = -1;
+    private int texUploaded = -1;
+    private int normalUploaded = -1;
+    private int indexUploaded = -1;
 
     /**
      * construct
@@ -179,6 +275,23 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public abstract T getThis();
 
+    /**
+     * Set interleaved mode.
+     * <p>
+     * All attributes are packed into {@link #vertVbo} in the order of
+     * vertices, colors, texture coordinates and normals, and the strides and
+     * offsets are computed when uploading. Call this before setting the data.
+     * </p>
+     *
+     * @param interleaved interleaved
+     * @return this
+     * @since 1.6.0
+     */
+    public T interleaved(boolean interleaved) {
+        this.interleaved = interleaved;
+        return getThis();
+    }
+
     /**
      * set vertices
      *
@@ -187,6 +300,8 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T vertices(float[] vertices) {
         this.vertices = vertices;
+        vertDirty = true;
+        boundsDirty = true;
         return getThis();
     }
 
@@ -198,6 +313,7 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T vertUsage(int vertUsage) {
         this.vertUsage = vertUsage;
+        vertUploaded = -1;
         return getThis();
     }
 
@@ -209,6 +325,7 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T vertDim(int vertDim) {
         this.vertDim = vertDim;
+        boundsDirty = true;
         return getThis();
     }
 
@@ -242,7 +359,8 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T colors(float[] colors) {
         this.colors = colors;
-        if (colorVbo == 0) {
+        colorDirty = true;
+        if (colorVbo == 0 && !interleaved) {
             colorVbo = glGenBuffers();
         }
         return getThis();
@@ -256,6 +374,7 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T colorUsage(int colorUsage) {
         this.colorUsage = colorUsage;
+        colorUploaded = -1;
         return getThis();
     }
 
@@ -327,7 +446,8 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T texCoords(float[] texCoords) {
         this.texCoords = texCoords;
-        if (texVbo == 0) {
+        texDirty = true;
+        if (texVbo == 0 && !interleaved) {
             texVbo = glGenBuffers();
         }
         return getThis();
@@ -341,6 +461,7 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T texUsage(int texUsage) {
         this.texUsage = texUsage;
+        texUploaded = -1;
         return getThis();
     }
 
@@ -386,7 +507,8 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T normalVert(float[] normalVert) {
         this.normalVert = normalVert;
-        if (normalVbo == 0) {
+        normalDirty = true;
+        if (normalVbo == 0 && !interleaved) {
             normalVbo = glGenBuffers();
         }
         return getThis();
@@ -401,6 +523,7 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T normalUsage(int normalUsage) {
         this.normalUsage = normalUsage;
+        normalUploaded = -1;
         return getThis();
     }
 
@@ -440,6 +563,86 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
         return getThis();
     }
 
+    /**
+     * Replace a range of the vertices. The changed ranges are uploaded
+     * with {@code glBufferSubData} on the next upload, merged if they
+     * overlap or touch.
+     *
+     * @param offset the offset in floats
+     * @param data   the new data
+     * @return this
+     * @since 1.6.0
+     */
+    public T updateVertices(int offset, float[] data) {
+        update(vertices, vertDim, offset, data, vertDirty, vertRanges);
+        boundsDirty = true;
+        return getThis();
+    }
+
+    /**
+     * Replace a range of the colors.
+     *
+     * @param offset the offset in floats
+     * @param data   the new data
+     * @return this
+     * @see #updateVertices(int, float[])
+     * @since 1.6.0
+     */
+    public T updateColors(int offset, float[] data) {
+        update(colors, colorDim, offset, data, colorDirty, colorRanges);
+        return getThis();
+    }
+
+    /**
+     * Replace a range of the texture coordinates.
+     *
+     * @param offset the offset in floats
+     * @param data   the new data
+     * @return this
+     * @see #updateVertices(int, float[])
+     * @since 1.6.0
+     */
+    public T updateTexCoords(int offset, float[] data) {
+        update(texCoords, texDim, offset, data, texDirty, texRanges);
+        return getThis();
+    }
+
+    /**
+     * Replace a range of the normals.
+     *
+     * @param offset the offset in floats
+     * @param data   the new data
+     * @return this
+     * @see #updateVertices(int, float[])
+     * @since 1.6.0
+     */
+    public T updateNormals(int offset, float[] data) {
+        update(normalVert, normalDim, offset, data, normalDirty, normalRanges);
+        return getThis();
+    }
+
+    private void update(float[] dst,
+                        int dim,
+                        int offset,
+                        float[] data,
+                        boolean dirty,
+                        DirtyRanges ranges) {
+        if (dst == null) {
+            throw new IllegalStateException("No data to update");
+        }
+        System.arraycopy(data, 0, dst, offset, data.length);
+        if (interleaved) {
+            // a full upload is already pending
+            if (!(vertDirty || colorDirty || texDirty || normalDirty)) {
+                interleavedRanges.add(offset / dim,
+                    (offset + data.length + dim - 1) / dim);
+            }
+        } else if (!dirty) {
+            ranges.add(offset, offset + data.length);
+            rangeDirty = true;
+        }
+    }
+
     /**
      * set indices
      *
@@ -448,13 +651,248 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T indices(int[] indices) {
         this.indices = indices;
+        indexDirty = true;
         vertexCount = indices.length;
+        indexFirst = 0;
+        lodFirst = null;
+        lodCount = null;
+        lodError = null;
+        lod = 0;
         if (ibo == 0) {
             ibo = glGenBuffers();
         }
         return getThis();
     }
 
+    /**
+     * Set the levels of detail. All levels are stored in one index buffer
+     * and share the vertices.
+     *
+     * @param levels the levels, from the full mesh
+     * @return this
+     * @since 1.6.0
+     */
+    public T lods(MeshSimplifier.Level[] levels) {
+        int length = 0;
+        for (MeshSimplifier.Level level : levels) {
+            length += level.indices.length;
+        }
+        int[] all = new int[length];
+        int[] first = new int[levels.length];
+        int[] count = new int[levels.length];
+        float[] error = new float[levels.length];
+        int pos = 0;
+        for (int i = 0; i < levels.length; i++) {
+            int[] level = levels[i].indices;
+            System.arraycopy(level, 0, all, pos, level.length);
+            first[i] = pos;
+            count[i] = level.length;
+            error[i] = levels[i].error;
+            pos += level.length;
+        }
+        indices(all);
+        lodFirst = first;
+        lodCount = count;
+        lodError = error;
+        return lod(0);
+    }
+
+    /**
+     * Generate the levels of detail from the vertices and triangle indices.
+     *
+     * @param levels the level count, including the full mesh
+     * @param ratio  the triangle ratio between two levels
+     * @return this
+     * @see MeshSimplifier#generateLods(int[], float[], int, int, float)
+     * @since 1.6.0
+     */
+    public T generateLods(int levels, float ratio) {
+        if (indices == null || vertices == null) {
+            throw new IllegalStateException("Levels of detail need vertices and indices");
+        }
+        return lods(MeshSimplifier.generateLods(indices,
+            vertices,
+            vertDim,
+            levels,
+            ratio));
+    }
+
+    /**
+     * Select the level of detail to draw.
+     *
+     * @param lod the level; 0 is the full mesh
+     * @return this
+     * @since 1.6.0
+     */
+    public T lod(int lod) {
+        if (lodFirst == null) {
+            if (lod != 0) {
+                throw new IllegalArgumentException("No levels of detail");
+            }
+            return getThis();
+        }
+        this.lod = lod;
+        indexFirst = lodFirst[lod];
+        vertexCount = lodCount[lod];
+        return getThis();
+    }
+
+    /**
+     * Select the coarsest level whose error on screen is within the
+     * threshold.
+     *
+     * @param distance      the distance from the camera
+     * @param projScale     pixels per unit at distance 1, see {@link #projScale(float, float)}
+     * @param maxPixelError the max error in pixels
+     * @return the selected level
+     * @since 1.6.0
+     */
+    public int selectLod(float distance, float projScale, float maxPixelError) {
+        if (lodFirst == null) {
+            return 0;
+        }
+        int level = lodFirst.length - 1;
+        while (level > 0 && lodError[level] * projScale > maxPixelError * distance) {
+            --level;
+        }
+        lod(level);
+        return level;
+    }
+
+    /**
+     * Get the pixels per unit at distance 1 of a perspective projection.
+     *
+     * @param fovY           the vertical field of view in radians
+     * @param viewportHeight the viewport height in pixels
+     * @return the scale
+     * @since 1.6.0
+     */
+    public static float projScale(float fovY, float viewportHeight) {
+        return viewportHeight / (2 * (float) Math.tan(fovY * 0.5));
+    }
+
+    /**
+     * get the level of detail count
+     *
+     * @return the level count; 1 if no levels were set
+     * @since 1.6.0
+     */
+    public int getLodCount() {
+        return lodFirst == null ? 1 : lodFirst.length;
+    }
+
+    /**
+     * get the first index of the drawn range
+     *
+     * @return the first index
+     * @since 1.6.0
+     */
+    public int getIndexFirst() {
+        return indexFirst;
+    }
+
+    /**
+     * get the selected level of detail
+     *
+     * @return the level
+     * @since 1.6.0
+     */
+    public int getLod() {
+        return lod;
+    }
+
+    /**
+     * get the geometric error of a level
+     *
+     * @param lod the level
+     * @return the error
+     * @since 1.6.0
+     */
+    public float getLodError(int lod) {
+        return lodError == null ? 0 : lodError[lod];
+    }
+
+    /**
+     * Remove the indices, so the mesh draws the vertices as arrays. The
+     * vertex count is set from the vertices.
+     *
+     * @return this
+     * @since 1.6.0
+     */
+    public T clearIndices() {
+        if (ibo != 0) {
+            glDeleteBuffers(ibo);
+            ibo = 0;
+        }
+        dropIndexArray();
+        indexType = GL_UNSIGNED_INT;
+        vertexCount = vertices != null ? vertices.length / vertDim : 0;
+        return getThis();
+    }
+
+    /**
+     * Forget the index array and the levels of detail, after the index
+     * buffer is written without them.
+     *
+     * @since 1.6.0
+     */
+    protected void dropIndexArray() {
+        indices = null;
+        indexDirty = false;
+        indexFirst = 0;
+        lodFirst = null;
+        lodCount = null;
+        lodError = null;
+        lod = 0;
+        indexUploaded = -1;
+    }
+
+    /**
+     * Forget the uploaded sizes and pending updates, after the buffers are
+     * written without the arrays. The next array upload reallocates the
+     * stores instead of writing into stores of another size.
+     *
+     * @since 1.6.0
+     */
+    protected void resetUploads() {
+        vertUploaded = -1;
+        colorUploaded = -1;
+        texUploaded = -1;
+        normalUploaded = -1;
+        indexUploaded = -1;
+        vertDirty = colorDirty = texDirty = normalDirty = false;
+        vertRanges.clear();
+        colorRanges.clear();
+        texRanges.clear();
+        normalRanges.clear();
+        interleavedRanges.clear();
+        rangeDirty = false;
+    }
+
+    /**
+     * Drop the vertex, color and texture coordinate arrays, after their
+     * stores are replaced without them. The bounds are unknown until new
+     * vertices are set.
+     *
+     * @since 1.6.0
+     */
+    protected void dropArrays() {
+        vertices = null;
+        colors = null;
+        texCoords = null;
+        boundsDirty = true;
+    }
+
+    /**
+     * get the offset of the drawn indices in bytes
+     *
+     * @return the offset
+     * @since 1.6.0
+     */
+    protected long indexOffset() {
+        return (long) indexFirst * Indices.bytes(indexType);
+    }
+
     /**
      * set index usage
      *
@@ -463,6 +901,7 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
      */
     public T indexUsage(int indexUsage) {
         this.indexUsage = indexUsage;
+        indexUploaded = -1;
         return getThis();
     }
 
@@ -477,6 +916,436 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
         return getThis();
     }
 
+    /**
+     * Compute the bounds from the vertices if they changed.
+     */
+    private void computeBounds() {
+        if (!boundsDirty || vertices == null) {
+            return;
+        }
+        boundsDirty = false;
+        int count = vertices.length / vertDim;
+        if (count == 0) {
+            minX = minY = minZ = maxX = maxY = maxZ = 0;
+            centerX = centerY = centerZ = radius = 0;
+            return;
+        }
+        minX = minY = minZ = Float.POSITIVE_INFINITY;
+        maxX = maxY = maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = 0, k = 0; i < count; i++, k += vertDim) {
+            float x = vertices[k];
+            float y = vertDim > 1 ? vertices[k + 1] : 0;
+            float z = vertDim > 2 ? vertices[k + 2] : 0;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        centerX = (minX + maxX) * 0.5f;
+        centerY = (minY + maxY) * 0.5f;
+        centerZ = (minZ + maxZ) * 0.5f;
+        // the sphere around the box center, tighter than the half diagonal
+        float r2 = 0;
+        for (int i = 0, k = 0; i < count; i++, k += vertDim) {
+            float dx = vertices[k] - centerX;
+            float dy = vertDim > 1 ? vertices[k + 1] - centerY : 0;
+            float dz = vertDim > 2 ? vertices[k + 2] - centerZ : 0;
+            r2 = Math.max(r2, dx * dx + dy * dy + dz * dz);
+        }
+        radius = (float) Math.sqrt(r2);
+    }
+
+    @Override
+    public boolean inFrustum(Frustum frustum) {
+        if (vertices == null) {
+            return true;
+        }
+        computeBounds();
+        return frustum.testBounds(minX, minY, minZ,
+            maxX, maxY, maxZ,
+            centerX, centerY, centerZ,
+            radius);
+    }
+
+    /**
+     * get the min corner of the bounding box
+     *
+     * @param dest the destination
+     * @return dest
+     * @since 1.6.0
+     */
+    public Vector3f getBoundsMin(Vector3f dest) {
+        computeBounds();
+        return dest.set(minX, minY, minZ);
+    }
+
+    /**
+     * get the max corner of the bounding box
+     *
+     * @param dest the destination
+     * @return dest
+     * @since 1.6.0
+     */
+    public Vector3f getBoundsMax(Vector3f dest) {
+        computeBounds();
+        return dest.set(maxX, maxY, maxZ);
+    }
+
+    /**
+     * get the center of the bounding sphere
+     *
+     * @param dest the destination
+     * @return dest
+     * @since 1.6.0
+     */
+    public Vector3f getBoundsCenter(Vector3f dest) {
+        computeBounds();
+        return dest.set(centerX, centerY, centerZ);
+    }
+
+    /**
+     * get the radius of the bounding sphere
+     *
+     * @return the radius
+     * @since 1.6.0
+     */
+    public float getBoundsRadius() {
+        computeBounds();
+        return radius;
+    }
+
+    /**
+     * Upload the data to the buffer bound to the target.
+     * <p>
+     * The data store is only reallocated if the length or usage changed;
+     * otherwise the data is replaced with {@code glBufferSubData}.
+     * </p>
+     *
+     * @param target   target
+     * @param data     data
+     * @param usage    usage
+     * @param uploaded the length of the data in the buffer, or -1 if the
+     *                 data store should be reallocated
+     * @return the length of the data in the buffer
+     * @since 1.6.0
+     */
+    protected static int upload(int target,
+                                float[] data,
+                                int usage,
+                                int uploaded) {
+        if (data.length == uploaded) {
+            glBufferSubData(target, 0, data);
+        } else {
+            glBufferData(target, data, usage);
+        }
+        return data.length;
+    }
+
+    /**
+     * Upload the data to the buffer bound to the target.
+     *
+     * @param target   target
+     * @param data     data
+     * @param usage    usage
+     * @param uploaded the length of the data in the buffer, or -1 if the
+     *                 data store should be reallocated
+     * @return the length of the data in the buffer
+     * @see #upload(int, float[], int, int)
+     * @since 1.6.0
+     */
+    protected static int upload(int target,
+                                int[] data,
+                                int usage,
+                                int uploaded) {
+        if (data.length == uploaded) {
+            glBufferSubData(target, 0, data);
+        } else {
+            glBufferData(target, data, usage);
+        }
+        return data.length;
+    }
+
+    /**
+     * Upload the data to the buffer bound to the target.
+     *
+     * @param target   target
+     * @param data     data
+     * @param usage    usage
+     * @param uploaded the byte count of the data in the buffer, or -1 if the
+     *                 data store should be reallocated
+     * @return the byte count of the data in the buffer
+     * @see #upload(int, float[], int, int)
+     * @since 1.6.0
+     */
+    protected static int upload(int target,
+                                ByteBuffer data,
+                                int usage,
+                                int uploaded) {
+        int size = data.remaining();
+        if (size == uploaded) {
+            glBufferSubData(target, 0, data);
+        } else {
+            glBufferData(target, data, usage);
+        }
+        return size;
+    }
+
+    /**
+     * Upload the vertices to the bound array buffer if changed.
+     *
+     * @since 1.6.0
+     */
+    protected void uploadVertices() {
+        if (vertices == null) {
+            return;
+        }
+        if (vertDirty) {
+            vertUploaded = upload(GL_ARRAY_BUFFER, vertices, vertUsage, vertUploaded);
+            vertDirty = false;
+            vertRanges.clear();
+        } else if (!vertRanges.isEmpty()) {
+            uploadRanges(GL_ARRAY_BUFFER, vertices, vertRanges);
+        }
+    }
+
+    /**
+     * Upload the colors to the bound array buffer if changed.
+     *
+     * @since 1.6.0
+     */
+    protected void uploadColors() {
+        if (colors == null) {
+            return;
+        }
+        if (colorDirty) {
+            colorUploaded = upload(GL_ARRAY_BUFFER, colors, colorUsage, colorUploaded);
+            colorDirty = false;
+            colorRanges.clear();
+        } else if (!colorRanges.isEmpty()) {
+            uploadRanges(GL_ARRAY_BUFFER, colors, colorRanges);
+        }
+    }
+
+    /**
+     * Upload the texture coordinates to the bound array buffer if changed.
+     *
+     * @since 1.6.0
+     */
+    protected void uploadTexCoords() {
+        if (texCoords == null) {
+            return;
+        }
+        if (texDirty) {
+            texUploaded = upload(GL_ARRAY_BUFFER, texCoords, texUsage, texUploaded);
+            texDirty = false;
+            texRanges.clear();
+        } else if (!texRanges.isEmpty()) {
+            uploadRanges(GL_ARRAY_BUFFER, texCoords, texRanges);
+        }
+    }
+
+    /**
+     * Upload the normals to the bound array buffer if changed.
+     *
+     * @since 1.6.0
+     */
+    protected void uploadNormals() {
+        if (normalVert == null) {
+            return;
+        }
+        if (normalDirty) {
+            normalUploaded = upload(GL_ARRAY_BUFFER, normalVert, normalUsage, normalUploaded);
+            normalDirty = false;
+            normalRanges.clear();
+        } else if (!normalRanges.isEmpty()) {
+            uploadRanges(GL_ARRAY_BUFFER, normalVert, normalRanges);
+        }
+    }
+
+    /**
+     * Pack the attributes and upload them to the bound array buffer if any
+     * changed, then compute the strides and offsets.
+     *
+     * @return {@code true} if uploaded
+     * @since 1.6.0
+     */
+    protected boolean uploadInterleaved() {
+        if (vertices == null) {
+            return false;
+        }
+        if (!(vertDirty || colorDirty || texDirty || normalDirty)) {
+            if (!interleavedRanges.isEmpty()) {
+                uploadInterleavedRanges();
+            }
+            return false;
+        }
+        int count = vertices.length / vertDim;
+        int stride = vertDim;
+        if (colors != null) {
+            stride += colorDim;
+        }
+        if (texCoords != null) {
+            stride += texDim;
+        }
+        if (normalVert != null) {
+            stride += normalDim;
+        }
+        float[] data = new float[count * stride];
+        int offset = interleave(vertices, vertDim, data, 0, stride, count);
+        vertOffset = 0;
+        if (colors != null) {
+            colorOffset = offset * 4L;
+            offset = interleave(colors, colorDim, data, offset, stride, count);
+        }
+        if (texCoords != null) {
+            texOffset = offset * 4L;
+            offset = interleave(texCoords, texDim, data, offset, stride, count);
+        }
+        if (normalVert != null) {
+            normalOffset = offset * 4L;
+            interleave(normalVert, normalDim, data, offset, stride, count);
+        }
+        vertStride = colorStride = texStride = normalStride = stride * 4;
+        vertUploaded = upload(GL_ARRAY_BUFFER, data, vertUsage, vertUploaded);
+        vertDirty = colorDirty = texDirty = normalDirty = false;
+        interleavedRanges.clear();
+        return true;
+    }
+
+    private void uploadInterleavedRanges() {
+        int count = vertices.length / vertDim;
+        int stride = vertStride / 4;
+        FloatBuffer buffer = memAllocFloat(interleavedRanges.maxLength() * stride);
+        try {
+            for (int i = 0; i < interleavedRanges.size(); i++) {
+                int start = interleavedRanges.getStart(i);
+                int end = Math.min(interleavedRanges.getEnd(i), count);
+                buffer.clear();
+                for (int v = start; v < end; v++) {
+                    pack(buffer, vertices, vertDim, v);
+                    if (colors != null) {
+                        pack(buffer, colors, colorDim, v);
+                    }
+                    if (texCoords != null) {
+                        pack(buffer, texCoords, texDim, v);
+                    }
+                    if (normalVert != null) {
+                        pack(buffer, normalVert, normalDim, v);
+                    }
+                }
+                buffer.flip();
+                glBufferSubData(GL_ARRAY_BUFFER, (long) start * vertStride, buffer);
+            }
+        } finally {
+            memFree(buffer);
+        }
+        interleavedRanges.clear();
+    }
+
+    private static void pack(FloatBuffer dst, float[] src, int dim, int vertex) {
+        for (int c = 0, k = vertex * dim; c < dim; c++, k++) {
+            dst.put(k < src.length ? src[k] : 0);
+        }
+    }
+
+    /**
+     * Upload the changed ranges of the data to the buffer bound to the
+     * target, then clear the ranges.
+     *
+     * @param target target
+     * @param data   data
+     * @param ranges the ranges in floats
+     * @since 1.6.0
+     */
+    protected static void uploadRanges(int target,
+                                       float[] data,
+                                       DirtyRanges ranges) {
+        FloatBuffer buffer = memAllocFloat(ranges.maxLength());
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                int start = ranges.getStart(i);
+                buffer.clear();
+                buffer.put(data, start, ranges.getEnd(i) - start).flip();
+                glBufferSubData(target, start * 4L, buffer);
+            }
+        } finally {
+            memFree(buffer);
+        }
+        ranges.clear();
+    }
+
+    /**
+     * Upload the changed ranges of the separate attribute buffers. The full
+     * uploads are not done here.
+     *
+     * @since 1.6.0
+     */
+    protected void uploadChangedRanges() {
+        if (!rangeDirty) {
+            return;
+        }
+        rangeDirty = false;
+        uploadBufferRanges(vertVbo, vertices, vertRanges);
+        uploadBufferRanges(colorVbo, colors, colorRanges);
+        uploadBufferRanges(texVbo, texCoords, texRanges);
+        uploadBufferRanges(normalVbo, normalVert, normalRanges);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    private static void uploadBufferRanges(int vbo, float[] data, DirtyRanges ranges) {
+        if (data != null && !ranges.isEmpty()) {
+            glBindBuffer(GL_ARRAY_BUFFER, vbo);
+            uploadRanges(GL_ARRAY_BUFFER, data, ranges);
+        }
+    }
+
+    private static int interleave(float[] src,
+                                  int dim,
+                                  float[] dst,
+                                  int offset,
+                                  int stride,
+                                  int count) {
+        for (int i = 0, j = offset, k = 0; i < count; i++, j += stride) {
+            for (int c = 0; c < dim; c++) {
+                dst[j + c] = k < src.length ? src[k] : 0;
+                ++k;
+            }
+        }
+        return offset + dim;
+    }
+
+    /**
+     * Upload the indices to the bound element array buffer if changed.
+     * <p>
+     * The indices are stored as the smallest type that can index all
+     * vertices; see {@link #getIndexType()}.
+     * </p>
+     *
+     * @since 1.6.0
+     */
+    protected void uploadIndices() {
+        if (indexDirty && indices != null) {
+            indexType = Indices.type(indices);
+            ByteBuffer buffer = memAlloc(indices.length * Indices.bytes(indexType));
+            Indices.narrow(indices, indexType, buffer).flip();
+            indexUploaded = upload(GL_ELEMENT_ARRAY_BUFFER, buffer, indexUsage, indexUploaded);
+            memFree(buffer);
+            indexDirty = false;
+        }
+    }
+
+    /**
+     * is interleaved
+     *
+     * @return interleaved
+     * @since 1.6.0
+     */
+    public boolean isInterleaved() {
+        return interleaved;
+    }
+
     /**
      * get vertex vbo
      *
@@ -666,6 +1535,17 @@ public abstract class BaseMesh<T extends IMesh> implements IMesh {
         return indexUsage;
     }
 
+    /**
+     * get the type of uploaded indices
+     *
+     * @return {@code GL_UNSIGNED_BYTE}, {@code GL_UNSIGNED_SHORT}
+     * or {@code GL_UNSIGNED_INT}
+     * @since 1.6.0
+     */
+    public int getIndexType() {
+        return indexType;
+    }
+
     /**
      * get normal vbo
      *
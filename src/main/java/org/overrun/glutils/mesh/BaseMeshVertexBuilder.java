@@ -65,6 +65,18 @@ public abstract class BaseMeshVertexBuilder implements IVertexBuilder, AutoClose
      * Is normalized
      */
     protected boolean normalized = false;
+    /**
+     * Weld the vertices into an indexed mesh
+     *
+     * @since 1.6.0
+     */
+    protected boolean weld = false;
+    /**
+     * The tolerance of welding
+     *
+     * @since 1.6.0
+     */
+    protected float weldEpsilon = 0;
 
     /**
      * Render this mesh
@@ -96,6 +108,76 @@ public abstract class BaseMeshVertexBuilder implements IVertexBuilder, AutoClose
      */
     public abstract BaseMesh<?> getMesh();
 
+    /**
+     * Merge identical vertices with {@link VertexWelder} and draw them
+     * with indices.
+     *
+     * @param weld    weld or not
+     * @param epsilon the tolerance, or 0 for exact matching
+     * @return this
+     * @since 1.6.0
+     */
+    public BaseMeshVertexBuilder weld(boolean weld, float epsilon) {
+        this.weld = weld;
+        weldEpsilon = epsilon;
+        markDirty();
+        return this;
+    }
+
+    /**
+     * Set the built vertices to the mesh and clear them.
+     *
+     * @param mesh the mesh
+     * @since 1.6.0
+     */
+    protected void build(BaseMesh<?> mesh) {
+        float[][] attributes = {
+            vertices.toFArray(),
+            colored ? colors.toFArray() : null,
+            textured ? textureCoord.toFArray() : null,
+            normalized ? normals.toFArray() : null
+        };
+        vertices.clear();
+        colors.clear();
+        textureCoord.clear();
+        normals.clear();
+        build(mesh, attributes);
+    }
+
+    /**
+     * Set the attributes to the mesh, welded if enabled.
+     *
+     * @param mesh       the mesh
+     * @param attributes the vertices, colors, texture coordinates and
+     *                   normals; {@code null} if not used
+     * @since 1.6.0
+     */
+    protected void build(BaseMesh<?> mesh, float[][] attributes) {
+        if (weld) {
+            VertexWelder.Result result = VertexWelder.weld(attributes,
+                new int[]{3, 4, 2, 3},
+                attributes[0].length / 3,
+                null,
+                weldEpsilon);
+            attributes = result.attributes;
+            mesh.indices(result.indices);
+        }
+        mesh.vertices(attributes[0]);
+        if (colored) {
+            mesh.colors(attributes[1]);
+        }
+        if (textured) {
+            mesh.texCoords(attributes[2]);
+        }
+        if (normalized) {
+            mesh.normalVert(attributes[3]);
+        }
+        if (!weld && mesh.ibo != 0) {
+            // the indices of a previous welded build
+            mesh.clearIndices();
+        }
+    }
+
     /**
      * Mark as changed
      */
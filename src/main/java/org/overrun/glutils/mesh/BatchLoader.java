@@ -0,0 +1,403 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import org.jetbrains.annotations.Nullable;
+import org.overrun.glutils.mesh.obj.ObjLoader;
+import org.overrun.glutils.mesh.obj.ObjModel3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Load many assets at once. Files are parsed in parallel on a
+ * {@link ForkJoinPool}, and the GL uploads are queued for the render thread.
+ * <p>
+ * Submit the assets, then call {@link #upload()} every frame, or
+ * {@link #finish()} to block until all are loaded. Both must be called on
+ * the thread that owns the GL context.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class BatchLoader {
+    private final ForkJoinPool pool;
+    private final LinkedBlockingQueue<Handle<?>> uploads = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * An asset in loading.
+     *
+     * @param <T> asset type
+     * @author squid233
+     * @since 1.6.0
+     */
+    public static final class Handle<T> {
+        private final String name;
+        private final Supplier<Supplier<T>> parser;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long submitTime;
+        private Supplier<T> uploader;
+        private volatile long parseStart;
+        private volatile long parseEnd;
+        private volatile long uploadStart;
+        private volatile long uploadEnd;
+
+        private Handle(String name,
+                       Supplier<Supplier<T>> parser) {
+            this.name = name;
+            this.parser = parser;
+            submitTime = System.nanoTime();
+        }
+
+        private void parse() {
+            parseStart = System.nanoTime();
+            uploader = parser.get();
+            parseEnd = System.nanoTime();
+        }
+
+        private void upload() {
+            uploadStart = System.nanoTime();
+            T t = uploader.get();
+            uploader = null;
+            uploadEnd = System.nanoTime();
+            future.complete(t);
+        }
+
+        /**
+         * get name
+         *
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the future. It is completed on the render thread after
+         * uploading, so don't wait for it on the render thread.
+         *
+         * @return future
+         */
+        public CompletableFuture<T> getFuture() {
+            return future;
+        }
+
+        /**
+         * Check if the asset is uploaded or failed.
+         *
+         * @return is done
+         */
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        /**
+         * Get the asset. Throws if the asset is not loaded yet or the
+         * loading failed.
+         *
+         * @return the asset
+         * @throws IllegalStateException if not loaded yet
+         */
+        public T get() {
+            if (!future.isDone()) {
+                throw new IllegalStateException("Asset " + name + " is not loaded yet");
+            }
+            return future.join();
+        }
+
+        /**
+         * Get the time waiting in the pool before parsing.
+         *
+         * @return nanoseconds, or 0 if not started
+         */
+        public long getQueueNanos() {
+            long start = parseStart;
+            return start != 0 ? start - submitTime : 0;
+        }
+
+        /**
+         * Get the parsing time on the worker thread.
+         *
+         * @return nanoseconds, or 0 if not parsed
+         */
+        public long getParseNanos() {
+            long end = parseEnd;
+            return end != 0 ? end - parseStart : 0;
+        }
+
+        /**
+         * Get the time between parsed and uploading.
+         *
+         * @return nanoseconds, or 0 if not started uploading
+         */
+        public long getUploadWaitNanos() {
+            long start = uploadStart;
+            return start != 0 ? start - parseEnd : 0;
+        }
+
+        /**
+         * Get the uploading time on the render thread.
+         *
+         * @return nanoseconds, or 0 if not uploaded
+         */
+        public long getUploadNanos() {
+            long end = uploadEnd;
+            return end != 0 ? end - uploadStart : 0;
+        }
+
+        /**
+         * Get the time from submitting to uploaded.
+         *
+         * @return nanoseconds, or 0 if not uploaded
+         */
+        public long getTotalNanos() {
+            long end = uploadEnd;
+            return end != 0 ? end - submitTime : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: queue %.2f ms, parse %.2f ms, wait %.2f ms, upload %.2f ms",
+                name,
+                getQueueNanos() / 1e6,
+                getParseNanos() / 1e6,
+                getUploadWaitNanos() / 1e6,
+                getUploadNanos() / 1e6);
+        }
+    }
+
+    /**
+     * Construct with the common pool.
+     */
+    public BatchLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * construct
+     *
+     * @param pool the pool to parse in
+     */
+    public BatchLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Submit an asset.
+     *
+     * @param name   the name of the asset
+     * @param parser Parse the asset on a worker thread, and return the
+     *               upload step that is called on the render thread.
+     * @param <T>    asset type
+     * @return the handle
+     */
+    public <T> Handle<T> submit(String name,
+                                Supplier<Supplier<T>> parser) {
+        Handle<T> handle = new Handle<>(name, parser);
+        pending.incrementAndGet();
+        pool.execute(() -> {
+            try {
+                handle.parse();
+                uploads.add(handle);
+            } catch (Throwable t) {
+                fail(handle, t);
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Submit a mesh file.
+     *
+     * @param cl       class loader
+     * @param file     filename
+     * @param pre      pre-operations, called on the render thread
+     * @param optimize reorder the triangles and vertices with
+     *                 {@link MeshOptimizer} if the mesh is indexed
+     * @param macros   macros
+     * @return the handle
+     * @see MeshLoader#parse3(ClassLoader, String, Consumer, boolean, MeshMacro...)
+     */
+    public Handle<Mesh3> mesh3(ClassLoader cl,
+                               String file,
+                               @Nullable Consumer<Mesh3> pre,
+                               boolean optimize,
+                               MeshMacro... macros) {
+        return submit(file, () -> MeshLoader.parse3(cl, file, pre, optimize, macros));
+    }
+
+    /**
+     * Submit mesh files.
+     *
+     * @param cl       class loader
+     * @param files    filenames
+     * @param optimize reorder the triangles and vertices with
+     *                 {@link MeshOptimizer} if the mesh is indexed
+     * @param macros   macros
+     * @return the handles, in the order of the files
+     */
+    public List<Handle<Mesh3>> mesh3(ClassLoader cl,
+                                     List<String> files,
+                                     boolean optimize,
+                                     MeshMacro... macros) {
+        List<Handle<Mesh3>> handles = new ArrayList<>(files.size());
+        for (String file : files) {
+            handles.add(mesh3(cl, file, null, optimize, macros));
+        }
+        return handles;
+    }
+
+    /**
+     * Submit an object file.
+     *
+     * @param cl        Class loader
+     * @param filename  Object filename in classpath (in relative path).
+     * @param flags     Assimp flags. Must triangulate if optimizing.
+     * @param preReturn Set attribute index before return, called on the
+     *                  render thread.
+     * @param optimize  Reorder the triangles and vertices with
+     *                  {@link MeshOptimizer}.
+     * @return the handle
+     * @see ObjLoader#parse3(ClassLoader, String, int, ObjLoader.PreReturn, boolean)
+     */
+    public Handle<ObjModel3> obj3(ClassLoader cl,
+                                  String filename,
+                                  int flags,
+                                  ObjLoader.@Nullable PreReturn preReturn,
+                                  boolean optimize) {
+        return submit(filename, () -> ObjLoader.parse3(cl, filename, flags, preReturn, optimize));
+    }
+
+    /**
+     * Submit object files with default flags.
+     *
+     * @param cl        Class loader
+     * @param filenames Object filenames in classpath.
+     * @param optimize  Reorder the triangles and vertices with
+     *                  {@link MeshOptimizer}.
+     * @return the handles, in the order of the files
+     */
+    public List<Handle<ObjModel3>> obj3(ClassLoader cl,
+                                        List<String> filenames,
+                                        boolean optimize) {
+        List<Handle<ObjModel3>> handles = new ArrayList<>(filenames.size());
+        for (String filename : filenames) {
+            handles.add(obj3(cl, filename, ObjLoader.DEFAULT_FLAGS, null, optimize));
+        }
+        return handles;
+    }
+
+    private void fail(Handle<?> handle,
+                      Throwable t) {
+        handle.future.completeExceptionally(t);
+        pending.decrementAndGet();
+    }
+
+    private void upload(Handle<?> handle) {
+        try {
+            handle.upload();
+            pending.decrementAndGet();
+        } catch (Throwable t) {
+            fail(handle, t);
+        }
+    }
+
+    /**
+     * Upload all parsed assets. Call on the render thread.
+     *
+     * @return the count of uploaded assets
+     */
+    public int upload() {
+        return upload(Long.MAX_VALUE);
+    }
+
+    /**
+     * Upload parsed assets until the time budget is used up. At least one
+     * asset is uploaded if any is parsed. Call on the render thread.
+     *
+     * @param budgetNanos the time budget in nanoseconds
+     * @return the count of uploaded assets
+     */
+    public int upload(long budgetNanos) {
+        long start = System.nanoTime();
+        int count = 0;
+        Handle<?> handle;
+        while ((handle = uploads.poll()) != null) {
+            upload(handle);
+            ++count;
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Upload the assets as they are parsed, until all submitted assets are
+     * done. Call on the render thread.
+     */
+    public void finish() {
+        try {
+            while (pending.get() > 0) {
+                // a failed parse doesn't queue, so don't wait forever
+                Handle<?> handle = uploads.poll(1, TimeUnit.MILLISECONDS);
+                if (handle != null) {
+                    upload(handle);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * get the count of assets not done
+     *
+     * @return the count
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Check if all submitted assets are done.
+     *
+     * @return is done
+     */
+    public boolean isDone() {
+        return pending.get() == 0;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import java.util.Arrays;
+
+/**
+ * A sorted set of disjoint ranges. Overlapping and adjacent ranges are
+ * merged when added, so each range needs one buffer update.
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class DirtyRanges {
+    private final int maxGap;
+    private int[] starts = new int[4];
+    private int[] ends = new int[4];
+    private int count;
+
+    /**
+     * construct
+     *
+     * @param maxGap ranges with a gap up to this are merged as well
+     */
+    public DirtyRanges(int maxGap) {
+        this.maxGap = maxGap;
+    }
+
+    /**
+     * construct
+     */
+    public DirtyRanges() {
+        this(0);
+    }
+
+    /**
+     * Add a range.
+     *
+     * @param start the start, inclusive
+     * @param end   the end, exclusive
+     */
+    public void add(int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        // the first range that may merge with [start, end)
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] + maxGap < start) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int last = lo;
+        while (last < count && starts[last] <= end + maxGap) {
+            start = Math.min(start, starts[last]);
+            end = Math.max(end, ends[last]);
+            ++last;
+        }
+        int merged = last - lo;
+        if (merged == 0) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            System.arraycopy(starts, lo, starts, lo + 1, count - lo);
+            System.arraycopy(ends, lo, ends, lo + 1, count - lo);
+            ++count;
+        } else if (merged > 1) {
+            System.arraycopy(starts, last, starts, lo + 1, count - last);
+            System.arraycopy(ends, last, ends, lo + 1, count - last);
+            count -= merged - 1;
+        }
+        starts[lo] = start;
+        ends[lo] = end;
+    }
+
+    /**
+     * Remove all ranges.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * is empty
+     *
+     * @return {@code true} if no range
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * get range count
+     *
+     * @return the count
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * get the start of a range
+     *
+     * @param i the range index
+     * @return the start, inclusive
+     */
+    public int getStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     * get the end of a range
+     *
+     * @param i the range index
+     * @return the end, exclusive
+     */
+    public int getEnd(int i) {
+        return ends[i];
+    }
+
+    /**
+     * get the max length of all ranges
+     *
+     * @return the length
+     */
+    public int maxLength() {
+        int max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, ends[i] - starts[i]);
+        }
+        return max;
+    }
+}
@@ -26,6 +26,7 @@
 package org.overrun.glutils.mesh;
 
 import org.overrun.glutils.Drawable;
+import org.overrun.glutils.math.Frustum;
 
 import static org.lwjgl.opengl.GL15.*;
 
@@ -56,6 +57,18 @@ public interface IMesh extends Drawable, AutoCloseable {
         render(GL_TRIANGLES);
     }
 
+    /**
+     * Test if this mesh may be visible.
+     *
+     * @param frustum the frustum in the space of the vertices
+     * @return {@code false} if this mesh is fully outside; {@code true} if
+     * no bounds are known
+     * @since 1.6.0
+     */
+    default boolean inFrustum(Frustum frustum) {
+        return true;
+    }
+
     /**
      * Cleanup all resources.
      */
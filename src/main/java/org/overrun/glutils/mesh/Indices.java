@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Index narrowing.
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class Indices {
+    /**
+     * Get the smallest type that can store the indices.
+     *
+     * @param indices indices
+     * @return {@code GL_UNSIGNED_BYTE}, {@code GL_UNSIGNED_SHORT}
+     * or {@code GL_UNSIGNED_INT}
+     */
+    public static int type(int[] indices) {
+        // the thresholds are bit boundaries, so the or of all indices
+        // needs the same type as the max index
+        int bits = 0;
+        for (int i : indices) {
+            bits |= i;
+        }
+        return type(bits);
+    }
+
+    /**
+     * Get the smallest type that can store the index.
+     *
+     * @param maxIndex max index
+     * @return {@code GL_UNSIGNED_BYTE}, {@code GL_UNSIGNED_SHORT}
+     * or {@code GL_UNSIGNED_INT}
+     */
+    public static int type(int maxIndex) {
+        if (Integer.compareUnsigned(maxIndex, 0xff) <= 0) {
+            return GL_UNSIGNED_BYTE;
+        }
+        if (Integer.compareUnsigned(maxIndex, 0xffff) <= 0) {
+            return GL_UNSIGNED_SHORT;
+        }
+        return GL_UNSIGNED_INT;
+    }
+
+    /**
+     * Get the byte count of the type.
+     *
+     * @param type the index type
+     * @return the byte count
+     */
+    public static int bytes(int type) {
+        switch (type) {
+            case GL_UNSIGNED_BYTE:
+                return 1;
+            case GL_UNSIGNED_SHORT:
+                return 2;
+            case GL_UNSIGNED_INT:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Unsupported index type: " + type);
+        }
+    }
+
+    /**
+     * Put the indices as the type from the position of the buffer,
+     * in the byte order of the buffer.
+     *
+     * @param indices indices
+     * @param type    the index type
+     * @param dst     the buffer with enough bytes remaining
+     * @return the buffer
+     */
+    public static ByteBuffer narrow(int[] indices, int type, ByteBuffer dst) {
+        switch (type) {
+            case GL_UNSIGNED_BYTE:
+                for (int i : indices) {
+                    dst.put((byte) i);
+                }
+                break;
+            case GL_UNSIGNED_SHORT:
+                for (int i : indices) {
+                    dst.putShort((short) i);
+                }
+                break;
+            case GL_UNSIGNED_INT:
+                dst.asIntBuffer().put(indices);
+                dst.position(dst.position() + indices.length * 4);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported index type: " + type);
+        }
+        return dst;
+    }
+}
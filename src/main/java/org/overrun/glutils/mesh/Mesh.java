@@ -191,50 +191,60 @@ public class Mesh extends BaseMesh<Mesh> {
     @Override
     public void render(int primitive) {
         glBindBuffer(GL_ARRAY_BUFFER, vertVbo);
-        glBufferData(GL_ARRAY_BUFFER, vertices, vertUsage);
+        if (interleaved) {
+            uploadInterleaved();
+        } else {
+            uploadVertices();
+        }
         glEnableVertexAttribArray(vertIdx);
         glVertexAttribPointer(vertIdx,
                 vertDim,
                 GL_FLOAT,
                 vertNormalized,
                 vertStride,
-                0);
-        if (colorVbo != 0 && colorIdx >= -1) {
-            glBindBuffer(GL_ARRAY_BUFFER, colorVbo);
-            glBufferData(GL_ARRAY_BUFFER, colors, colorUsage);
+                vertOffset);
+        if (colors != null && colorIdx >= -1) {
+            if (!interleaved) {
+                glBindBuffer(GL_ARRAY_BUFFER, colorVbo);
+                uploadColors();
+            }
             glEnableVertexAttribArray(colorIdx);
             glVertexAttribPointer(colorIdx,
                     colorDim,
                     GL_FLOAT,
                     colorNormalized,
                     colorStride,
-                    0);
+                    colorOffset);
         }
-        if (texVbo != 0 && texIdx >= -1) {
-            glBindBuffer(GL_ARRAY_BUFFER, texVbo);
-            glBufferData(GL_ARRAY_BUFFER, texCoords, texUsage);
+        if (texCoords != null && texIdx >= -1) {
+            if (!interleaved) {
+                glBindBuffer(GL_ARRAY_BUFFER, texVbo);
+                uploadTexCoords();
+            }
             glEnableVertexAttribArray(texIdx);
             glVertexAttribPointer(texIdx,
                     texDim,
                     GL_FLOAT,
                     texNormalized,
                     texStride,
-                    0);
+                    texOffset);
         }
-        if (normalVbo != 0 && normalIdx >= -1) {
-            glBindBuffer(GL_ARRAY_BUFFER, normalVbo);
-            glBufferData(GL_ARRAY_BUFFER, normalVert, normalUsage);
+        if (normalVert != null && normalIdx >= -1) {
+            if (!interleaved) {
+                glBindBuffer(GL_ARRAY_BUFFER, normalVbo);
+                uploadNormals();
+            }
             glEnableVertexAttribArray(normalIdx);
             glVertexAttribPointer(normalIdx,
                     normalDim,
                     GL_FLOAT,
                     normalNormalized,
                     normalStride,
-                    0);
+                    normalOffset);
         }
         if (ibo != 0) {
             glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
-            glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, indexUsage);
+            uploadIndices();
         }
         glBindBuffer(GL_ARRAY_BUFFER, 0);
         if (material != null) {
@@ -244,7 +254,7 @@ public class Mesh extends BaseMesh<Mesh> {
         if (ibo == 0) {
             glDrawArrays(primitive, 0, getVertexCount());
         } else {
-            glDrawElements(primitive, getVertexCount(), GL_UNSIGNED_INT, 0);
+            glDrawElements(primitive, getVertexCount(), indexType, indexOffset());
         }
         Textures.unbind2D();
     }
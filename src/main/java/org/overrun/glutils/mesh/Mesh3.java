@@ -25,9 +25,14 @@
 
 package org.overrun.glutils.mesh;
 
+import org.overrun.glutils.InstanceBuffer;
 import org.overrun.glutils.Textures;
+import org.overrun.glutils.VertexFormat;
 
-import static org.lwjgl.opengl.GL30.*;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL31.*;
 
 /**
  * {@link Mesh} for OpenGL 3<br>
@@ -91,6 +96,40 @@ public class Mesh3 extends BaseMesh<Mesh3> {
         return this;
     }
 
+    /**
+     * Set the attribute indices and dimensions from a vertex format.
+     * <p>
+     * The mesh keeps its attributes in separate float buffers, so only the
+     * indices and sizes of the elements are used. Attributes absent from the
+     * format are disabled. Call this before setting the data.
+     * </p>
+     *
+     * @param format vertex format
+     * @return this
+     * @since 1.6.0
+     */
+    public Mesh3 format(VertexFormat format) {
+        VertexFormat.Element e = format.getPosition();
+        vertIdx = e.index;
+        vertDim = e.size;
+        e = format.getColor();
+        colorIdx = e != null ? e.index : -1;
+        if (e != null) {
+            colorDim = e.size;
+        }
+        e = format.getTexCoord();
+        texIdx = e != null ? e.index : -1;
+        if (e != null) {
+            texDim = e.size;
+        }
+        e = format.getNormal();
+        normalIdx = e != null ? e.index : -1;
+        if (e != null) {
+            normalDim = e.size;
+        }
+        return this;
+    }
+
     /**
      * bind vao
      *
@@ -115,9 +154,10 @@ public class Mesh3 extends BaseMesh<Mesh3> {
 
     @Override
     public Mesh3 vertices(float[] vertices) {
-        if (vertIdx > -1) {
+        super.vertices(vertices);
+        if (vertIdx > -1 && !interleaved) {
             glBindBuffer(GL_ARRAY_BUFFER, vertVbo);
-            glBufferData(GL_ARRAY_BUFFER, vertices, vertUsage);
+            uploadVertices();
             glEnableVertexAttribArray(vertIdx);
             glVertexAttribPointer(vertIdx,
                     vertDim,
@@ -127,15 +167,15 @@ public class Mesh3 extends BaseMesh<Mesh3> {
                     0);
             glBindBuffer(GL_ARRAY_BUFFER, 0);
         }
-        return super.vertices(vertices);
+        return this;
     }
 
     @Override
     public Mesh3 colors(float[] colors) {
         super.colors(colors);
-        if (colorIdx > -1) {
+        if (colorIdx > -1 && !interleaved) {
             glBindBuffer(GL_ARRAY_BUFFER, colorVbo);
-            glBufferData(GL_ARRAY_BUFFER, colors, colorUsage);
+            uploadColors();
             glEnableVertexAttribArray(colorIdx);
             glVertexAttribPointer(colorIdx,
                     colorDim,
@@ -151,9 +191,9 @@ public class Mesh3 extends BaseMesh<Mesh3> {
     @Override
     public Mesh3 texCoords(float[] texCoords) {
         super.texCoords(texCoords);
-        if (texIdx > -1) {
+        if (texIdx > -1 && !interleaved) {
             glBindBuffer(GL_ARRAY_BUFFER, texVbo);
-            glBufferData(GL_ARRAY_BUFFER, texCoords, texUsage);
+            uploadTexCoords();
             glEnableVertexAttribArray(texIdx);
             glVertexAttribPointer(texIdx,
                     texDim,
@@ -169,9 +209,9 @@ public class Mesh3 extends BaseMesh<Mesh3> {
     @Override
     public Mesh3 normalVert(float[] normalVert) {
         super.normalVert(normalVert);
-        if (normalIdx > -1) {
+        if (normalIdx > -1 && !interleaved) {
             glBindBuffer(GL_ARRAY_BUFFER, normalVbo);
-            glBufferData(GL_ARRAY_BUFFER, normalVert, normalUsage);
+            uploadNormals();
             glEnableVertexAttribArray(normalIdx);
             glVertexAttribPointer(normalIdx,
                     normalDim,
@@ -188,10 +228,127 @@ public class Mesh3 extends BaseMesh<Mesh3> {
     public Mesh3 indices(int[] indices) {
         super.indices(indices);
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, indexUsage);
+        uploadIndices();
+        return this;
+    }
+
+    /**
+     * Upload the streamed attributes and draw them without indices. The
+     * vertex, color and texture coordinate arrays of this mesh are dropped.
+     *
+     * @param vertices  the vertices
+     * @param colors    the colors, or {@code null}
+     * @param texCoords the texture coordinates, or {@code null}
+     * @param normals   the normals, or {@code null}
+     * @return this
+     * @since 1.6.0
+     */
+    public Mesh3 stream(StreamBuffer vertices,
+                        StreamBuffer colors,
+                        StreamBuffer texCoords,
+                        StreamBuffer normals) {
+        glBindVertexArray(vao);
+        stream(vertices, vertVbo, vertUsage);
+        pointer(vertIdx, vertDim, vertNormalized, vertStride, 0);
+        if (colors != null) {
+            if (colorVbo == 0) {
+                colorVbo = glGenBuffers();
+            }
+            stream(colors, colorVbo, colorUsage);
+            pointer(colorIdx, colorDim, colorNormalized, colorStride, 0);
+        }
+        if (texCoords != null) {
+            if (texVbo == 0) {
+                texVbo = glGenBuffers();
+            }
+            stream(texCoords, texVbo, texUsage);
+            pointer(texIdx, texDim, texNormalized, texStride, 0);
+        }
+        if (normals != null) {
+            if (normalVbo == 0) {
+                normalVbo = glGenBuffers();
+            }
+            stream(normals, normalVbo, normalUsage);
+            pointer(normalIdx, normalDim, normalNormalized, normalStride, 0);
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+        resetUploads();
+        dropArrays();
+        clearIndices();
+        vertexCount = vertices.size() / vertDim;
         return this;
     }
 
+    /**
+     * Upload the attributes from buffers, e.g. mapped from a file, without
+     * copying them to arrays. The vertex, color and texture coordinate
+     * arrays of this mesh are dropped, so they can't be updated and the
+     * mesh is never culled until new vertices are set. The levels of detail
+     * are removed.
+     *
+     * @param vertices  the vertices
+     * @param colors    the colors, or {@code null}
+     * @param texCoords the texture coordinates, or {@code null}
+     * @param indices   the indices, or {@code null}
+     * @return this
+     * @see MeshBinary
+     * @since 1.6.0
+     */
+    public Mesh3 buffers(FloatBuffer vertices,
+                         FloatBuffer colors,
+                         FloatBuffer texCoords,
+                         IntBuffer indices) {
+        if (interleaved) {
+            throw new IllegalStateException("Can't upload separate buffers in interleaved mode");
+        }
+        glBindVertexArray(vao);
+        glBindBuffer(GL_ARRAY_BUFFER, vertVbo);
+        glBufferData(GL_ARRAY_BUFFER, vertices, vertUsage);
+        pointer(vertIdx, vertDim, vertNormalized, vertStride, 0);
+        if (colors != null) {
+            if (colorVbo == 0) {
+                colorVbo = glGenBuffers();
+            }
+            glBindBuffer(GL_ARRAY_BUFFER, colorVbo);
+            glBufferData(GL_ARRAY_BUFFER, colors, colorUsage);
+            pointer(colorIdx, colorDim, colorNormalized, colorStride, 0);
+        }
+        if (texCoords != null) {
+            if (texVbo == 0) {
+                texVbo = glGenBuffers();
+            }
+            glBindBuffer(GL_ARRAY_BUFFER, texVbo);
+            glBufferData(GL_ARRAY_BUFFER, texCoords, texUsage);
+            pointer(texIdx, texDim, texNormalized, texStride, 0);
+        }
+        if (indices != null) {
+            if (ibo == 0) {
+                ibo = glGenBuffers();
+            }
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+            glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, indexUsage);
+        }
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        resetUploads();
+        dropArrays();
+        if (indices != null) {
+            dropIndexArray();
+            indexType = GL_UNSIGNED_INT;
+            vertexCount = indices.remaining();
+        } else {
+            clearIndices();
+            vertexCount = vertices.remaining() / vertDim;
+        }
+        return this;
+    }
+
+    private static void stream(StreamBuffer buffer, int vbo, int usage) {
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        buffer.upload(GL_ARRAY_BUFFER, usage);
+    }
+
     @Override
     public void render(int primitive) {
         if (material != null) {
@@ -199,15 +356,102 @@ public class Mesh3 extends BaseMesh<Mesh3> {
             Textures.bind2D(getTexture());
         }
         glBindVertexArray(vao);
+        if (interleaved) {
+            setupInterleaved();
+        } else {
+            uploadChangedRanges();
+        }
         if (ibo == 0) {
             glDrawArrays(primitive, 0, getVertexCount());
         } else {
-            glDrawElements(primitive, getVertexCount(), GL_UNSIGNED_INT, 0);
+            glDrawElements(primitive, getVertexCount(), indexType, indexOffset());
         }
         glBindVertexArray(0);
         Textures.unbind2D();
     }
 
+    /**
+     * Upload the changed attributes and set the pointers in bound vao.
+     */
+    private void setupInterleaved() {
+        glBindBuffer(GL_ARRAY_BUFFER, vertVbo);
+        if (uploadInterleaved()) {
+            pointer(vertIdx, vertDim, vertNormalized, vertStride, vertOffset);
+            if (colors != null) {
+                pointer(colorIdx, colorDim, colorNormalized, colorStride, colorOffset);
+            }
+            if (texCoords != null) {
+                pointer(texIdx, texDim, texNormalized, texStride, texOffset);
+            }
+            if (normalVert != null) {
+                pointer(normalIdx, normalDim, normalNormalized, normalStride, normalOffset);
+            }
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    private static void pointer(int index,
+                                int dim,
+                                boolean normalized,
+                                int stride,
+                                long offset) {
+        if (index > -1) {
+            glEnableVertexAttribArray(index);
+            glVertexAttribPointer(index,
+                    dim,
+                    GL_FLOAT,
+                    normalized,
+                    stride,
+                    offset);
+        }
+    }
+
+    /**
+     * Render this mesh once for each instance.
+     *
+     * @param primitive Drawing primitive.
+     * @param instances The instances.
+     * @since 1.6.0
+     */
+    public void renderInstanced(int primitive, InstanceBuffer instances) {
+        if (material != null) {
+            Textures.active(0);
+            Textures.bind2D(getTexture());
+        }
+        glBindVertexArray(vao);
+        if (interleaved) {
+            setupInterleaved();
+        } else {
+            uploadChangedRanges();
+        }
+        instances.enable();
+        if (ibo == 0) {
+            glDrawArraysInstanced(primitive,
+                    0,
+                    getVertexCount(),
+                    instances.getCount());
+        } else {
+            glDrawElementsInstanced(primitive,
+                    getVertexCount(),
+                    indexType,
+                    indexOffset(),
+                    instances.getCount());
+        }
+        instances.disable();
+        glBindVertexArray(0);
+        Textures.unbind2D();
+    }
+
+    /**
+     * Render this mesh once for each instance.
+     *
+     * @param instances The instances.
+     * @since 1.6.0
+     */
+    public void renderInstanced(InstanceBuffer instances) {
+        renderInstanced(GL_TRIANGLES, instances);
+    }
+
     /**
      * get vao
      *
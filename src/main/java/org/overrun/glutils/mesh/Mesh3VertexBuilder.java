@@ -25,34 +25,85 @@
 
 package org.overrun.glutils.mesh;
 
+import static org.lwjgl.opengl.GL15.GL_STREAM_DRAW;
+
 /**
+ * The vertices are accumulated in off-heap {@link StreamBuffer}s and
+ * streamed to the mesh without copying them to arrays, unless welding is
+ * enabled.
+ *
  * @author squid233
  * @since 1.2.0
  */
 public class Mesh3VertexBuilder extends BaseMeshVertexBuilder {
-    private final Mesh3 mesh = new Mesh3().colorDim(4).unbindVao();
+    private final Mesh3 mesh = new Mesh3()
+        .colorDim(4)
+        .vertUsage(GL_STREAM_DRAW)
+        .colorUsage(GL_STREAM_DRAW)
+        .texUsage(GL_STREAM_DRAW)
+        .normalUsage(GL_STREAM_DRAW)
+        .unbindVao();
+    private final StreamBuffer vertexStream = new StreamBuffer();
+    private final StreamBuffer colorStream = new StreamBuffer();
+    private final StreamBuffer texStream = new StreamBuffer();
+    private final StreamBuffer normalStream = new StreamBuffer();
 
     private void preRender() {
         if (isDirty) {
-            mesh.bindVao().vertices(vertices.toFArray());
-            vertices.clear();
-            if (colored) {
-                mesh.colors(colors.toFArray());
-                colors.clear();
-            }
-            if (textured) {
-                mesh.texCoords(textureCoord.toFArray());
-                textureCoord.clear();
-            }
-            if (normalized) {
-                mesh.normalVert(normals.toFArray());
-                normals.clear();
+            if (weld) {
+                mesh.bindVao();
+                build(mesh, new float[][]{
+                    vertexStream.toArray(),
+                    colored ? colorStream.toArray() : null,
+                    textured ? texStream.toArray() : null,
+                    normalized ? normalStream.toArray() : null
+                });
+                mesh.unbindVao();
+            } else {
+                mesh.stream(vertexStream,
+                    colored ? colorStream : null,
+                    textured ? texStream : null,
+                    normalized ? normalStream : null);
             }
-            mesh.unbindVao();
+            vertexStream.clear();
+            colorStream.clear();
+            texStream.clear();
+            normalStream.clear();
             isDirty = false;
         }
     }
 
+    @Override
+    public Mesh3VertexBuilder vertex(float x, float y, float z) {
+        markDirty();
+        vertexStream.put(x, y, z);
+        return this;
+    }
+
+    @Override
+    public Mesh3VertexBuilder color(float r, float g, float b, float a) {
+        markDirty();
+        colored = true;
+        colorStream.put(r, g, b, a);
+        return this;
+    }
+
+    @Override
+    public Mesh3VertexBuilder texture(float x, float y) {
+        markDirty();
+        textured = true;
+        texStream.put(x, y);
+        return this;
+    }
+
+    @Override
+    public Mesh3VertexBuilder normal(float x, float y, float z) {
+        markDirty();
+        normalized = true;
+        normalStream.put(x, y, z);
+        return this;
+    }
+
     @Override
     public Mesh3 getMesh() {
         return mesh;
@@ -73,5 +124,9 @@ public class Mesh3VertexBuilder extends BaseMeshVertexBuilder {
     @Override
     public void close() {
         mesh.close();
+        vertexStream.close();
+        colorStream.close();
+        texStream.close();
+        normalStream.close();
     }
 }
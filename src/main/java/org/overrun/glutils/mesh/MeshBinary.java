@@ -0,0 +1,287 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A compiled mesh file that is loaded by memory mapping.
+ * <p>
+ * Layout, all little-endian 32-bit values: magic {@code GLUM}, version,
+ * flags (1 colored, 2 textured, 4 indexed), the vertex, color and texture
+ * coordinate dimensions, the float counts of the vertices, colors and
+ * texture coordinates, the index count, then the raw float and int blocks
+ * in that order.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class MeshBinary {
+    /**
+     * {@code GLUM} in little-endian
+     */
+    public static final int MAGIC = 0x4d554c47;
+    /**
+     * the format version
+     */
+    public static final int VERSION = 1;
+    /**
+     * the header size in bytes
+     */
+    public static final int HEADER_SIZE = 40;
+    private static final int COLORED = 1;
+    private static final int TEXTURED = 2;
+    private static final int INDEXED = 4;
+    private final int vertDim;
+    private final int colorDim;
+    private final int texDim;
+    private final FloatBuffer vertices;
+    private final FloatBuffer colors;
+    private final FloatBuffer texCoords;
+    private final IntBuffer indices;
+
+    private MeshBinary(ByteBuffer data, Path file) {
+        if (data.capacity() < HEADER_SIZE
+            || data.getInt(0) != MAGIC
+            || data.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a binary mesh of version "
+                + VERSION + ": " + file);
+        }
+        int flags = data.getInt(8);
+        vertDim = data.getInt(12);
+        colorDim = data.getInt(16);
+        texDim = data.getInt(20);
+        int vertCount = data.getInt(24);
+        int colorCount = data.getInt(28);
+        int texCount = data.getInt(32);
+        int indexCount = data.getInt(36);
+        long size = HEADER_SIZE + 4L * vertCount + 4L * colorCount
+            + 4L * texCount + 4L * indexCount;
+        if (vertCount < 0 || colorCount < 0 || texCount < 0 || indexCount < 0
+            || size != data.capacity()
+            || !validDim(vertDim, vertCount)
+            || (flags & COLORED) != 0 && !validDim(colorDim, colorCount)
+            || (flags & TEXTURED) != 0 && !validDim(texDim, texCount)) {
+            throw new IllegalArgumentException("Corrupted binary mesh: " + file);
+        }
+        int offset = HEADER_SIZE;
+        vertices = block(data, offset, vertCount).asFloatBuffer();
+        offset += vertCount * 4;
+        colors = (flags & COLORED) != 0 ? block(data, offset, colorCount).asFloatBuffer() : null;
+        offset += colorCount * 4;
+        texCoords = (flags & TEXTURED) != 0 ? block(data, offset, texCount).asFloatBuffer() : null;
+        offset += texCount * 4;
+        indices = (flags & INDEXED) != 0 ? block(data, offset, indexCount).asIntBuffer() : null;
+    }
+
+    /**
+     * An attribute has 1 to 4 components and a whole number of vertices.
+     */
+    private static boolean validDim(int dim, int count) {
+        return dim >= 1 && dim <= 4 && count % dim == 0;
+    }
+
+    private static ByteBuffer block(ByteBuffer data, int offset, int count) {
+        ByteBuffer dup = data.duplicate();
+        dup.position(offset);
+        dup.limit(offset + count * 4);
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Write a mesh file in the binary format.
+     *
+     * @param mf   the mesh file
+     * @param file the output file
+     */
+    public static void write(MeshFile mf, Path file) {
+        float[] vertices = mf.vertices.toFArray();
+        float[] colors = mf.colored ? mf.colors.toFArray() : new float[0];
+        float[] texCoords = mf.textured ? mf.texCoords.toFArray() : new float[0];
+        int[] indices = mf.indexed ? mf.indices.toIArray() : new int[0];
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE
+                + 4 * (vertices.length + colors.length + texCoords.length + indices.length))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+            .putInt(VERSION)
+            .putInt((mf.colored ? COLORED : 0)
+                | (mf.textured ? TEXTURED : 0)
+                | (mf.indexed ? INDEXED : 0))
+            .putInt(mf.vertDim)
+            .putInt(mf.colorDim)
+            .putInt(mf.texDim)
+            .putInt(vertices.length)
+            .putInt(colors.length)
+            .putInt(texCoords.length)
+            .putInt(indices.length);
+        buffer.asFloatBuffer().put(vertices).put(colors).put(texCoords);
+        buffer.position(buffer.position()
+            + 4 * (vertices.length + colors.length + texCoords.length));
+        buffer.asIntBuffer().put(indices);
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Map a binary mesh file. The buffers read the file directly and stay
+     * valid after the file is closed.
+     *
+     * @param file the file
+     * @return the binary mesh
+     */
+    public static MeshBinary map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            return new MeshBinary(channel.map(FileChannel.MapMode.READ_ONLY,
+                0,
+                channel.size()).order(ByteOrder.LITTLE_ENDIAN), file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Upload the buffers to a mesh without copying them to the heap.
+     *
+     * @param mesh the mesh
+     * @return the mesh
+     * @see Mesh3#buffers(FloatBuffer, FloatBuffer, FloatBuffer, IntBuffer)
+     */
+    public Mesh3 upload(Mesh3 mesh) {
+        mesh.vertDim(vertDim);
+        if (colors != null) {
+            mesh.colorDim(colorDim);
+        }
+        if (texCoords != null) {
+            mesh.texDim(texDim);
+        }
+        return mesh.buffers(vertices, colors, texCoords, indices);
+    }
+
+    /**
+     * is colored
+     *
+     * @return is colored
+     */
+    public boolean isColored() {
+        return colors != null;
+    }
+
+    /**
+     * is textured
+     *
+     * @return is textured
+     */
+    public boolean isTextured() {
+        return texCoords != null;
+    }
+
+    /**
+     * is indexed
+     *
+     * @return is indexed
+     */
+    public boolean isIndexed() {
+        return indices != null;
+    }
+
+    /**
+     * get vertex dim
+     *
+     * @return vertex dim
+     */
+    public int getVertDim() {
+        return vertDim;
+    }
+
+    /**
+     * get color dim
+     *
+     * @return color dim
+     */
+    public int getColorDim() {
+        return colorDim;
+    }
+
+    /**
+     * get texture coordinate dim
+     *
+     * @return texture coordinate dim
+     */
+    public int getTexDim() {
+        return texDim;
+    }
+
+    /**
+     * get vertices
+     *
+     * @return vertices
+     */
+    public FloatBuffer getVertices() {
+        return vertices;
+    }
+
+    /**
+     * get colors
+     *
+     * @return colors, or {@code null}
+     */
+    public FloatBuffer getColors() {
+        return colors;
+    }
+
+    /**
+     * get texture coordinates
+     *
+     * @return texture coordinates, or {@code null}
+     */
+    public FloatBuffer getTexCoords() {
+        return texCoords;
+    }
+
+    /**
+     * get indices
+     *
+     * @return indices, or {@code null}
+     */
+    public IntBuffer getIndices() {
+        return indices;
+    }
+}
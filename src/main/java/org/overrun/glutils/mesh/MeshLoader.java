@@ -25,14 +25,19 @@
 
 package org.overrun.glutils.mesh;
 
+import org.overrun.commonutils.FloatArray;
+import org.overrun.commonutils.IntArray;
 import org.overrun.commonutils.MapStr2Str;
 import org.overrun.glutils.CompileException;
 import org.overrun.glutils.GLUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import static java.lang.Float.parseFloat;
 import static java.lang.Integer.parseInt;
@@ -57,6 +62,128 @@ public class MeshLoader {
         VERT_TEX,
         FACE
     );
+    /**
+     * the chars that are removed before matching a macro
+     */
+    private static final String INVALID_CHARS = "`~!@#%^&*()-=+[{}];'\\:\"|,./<>?";
+    private static final Pattern INVALID = Pattern.compile("[`~!@#%^&*()\\-=+\\[{}\\];'\\\\:\"|,./<>?]");
+    private static final Pattern INNER_SPACE = Pattern.compile(".+\\s.+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    /**
+     * A macro value split into tokens and parsed once when defined. A
+     * repeated value is kept as one copy and a count.
+     */
+    private static final class CompiledMacro {
+        private final String piece;
+        private final int repeat;
+        private String value;
+        /**
+         * the value has whitespace inside, so the line is split again
+         */
+        final boolean spaced;
+        private final float[] floats;
+        private final boolean[] floatValid;
+        private final int[] ints;
+        private final boolean[] intValid;
+        private float wholeFloat;
+        private boolean wholeFloatValid;
+        private int wholeInt;
+        private boolean wholeIntValid;
+
+        CompiledMacro(String piece, int repeat) {
+            this.piece = piece;
+            this.repeat = Math.max(repeat, 1);
+            if (this.repeat == 1) {
+                value = piece;
+                try {
+                    wholeFloat = parseFloat(piece);
+                    wholeFloatValid = true;
+                } catch (NumberFormatException ignore) {
+                }
+                try {
+                    wholeInt = parseInt(piece);
+                    wholeIntValid = true;
+                } catch (NumberFormatException ignore) {
+                }
+            }
+            spaced = this.repeat > 1 || INNER_SPACE.matcher(piece).matches();
+            String[] pieces = SPACES.split(piece);
+            floats = new float[pieces.length];
+            floatValid = new boolean[pieces.length];
+            ints = new int[pieces.length];
+            intValid = new boolean[pieces.length];
+            for (int i = 0; i < pieces.length; i++) {
+                try {
+                    floats[i] = parseFloat(pieces[i]);
+                    floatValid[i] = true;
+                } catch (NumberFormatException ignore) {
+                }
+                try {
+                    ints[i] = parseInt(pieces[i]);
+                    intValid[i] = true;
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        }
+
+        /**
+         * get the full value; a repeated value is only built here
+         */
+        String value() {
+            if (value == null) {
+                StringBuilder sb = new StringBuilder((piece.length() + 1) * repeat);
+                sb.append(piece);
+                for (int i = 1; i < repeat; i++) {
+                    sb.append(' ').append(piece);
+                }
+                value = sb.toString();
+            }
+            return value;
+        }
+
+        /**
+         * Add the floats of the value.
+         *
+         * @param split the line is split again after replacing
+         */
+        void addFloats(FloatArray dst, boolean split) {
+            if (!split) {
+                if (wholeFloatValid) {
+                    dst.add(wholeFloat);
+                }
+                return;
+            }
+            for (int r = 0; r < repeat; r++) {
+                for (int i = 0; i < floats.length; i++) {
+                    if (floatValid[i]) {
+                        dst.add(floats[i]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Add the ints of the value.
+         *
+         * @param split the line is split again after replacing
+         */
+        void addInts(IntArray dst, boolean split) {
+            if (!split) {
+                if (wholeIntValid) {
+                    dst.add(wholeInt);
+                }
+                return;
+            }
+            for (int r = 0; r < repeat; r++) {
+                for (int i = 0; i < ints.length; i++) {
+                    if (intValid[i]) {
+                        dst.add(ints[i]);
+                    }
+                }
+            }
+        }
+    }
 
     /**
      * define a macro
@@ -86,23 +213,23 @@ public class MeshLoader {
 
     private static String[] replaceByMacro(String[] arr,
                                            Set<String> definedMacros,
-                                           MapStr2Str macros) {
+                                           Map<String, CompiledMacro> macros) {
         return replaceByMacro(arr, definedMacros, 1, macros);
     }
 
     private static String[] replaceByMacro(String[] arr,
                                            Set<String> definedMacros,
                                            int offset,
-                                           MapStr2Str macros) {
+                                           Map<String, CompiledMacro> macros) {
         boolean hasSpace = false;
         for (int i = offset; i < arr.length; i++) {
             // remove invalid chars and calculating signs
-            String macro =
-                arr[i].replaceAll("[`~!@#%^&*()\\-=+\\[{}\\];'\\\\:\"|,./<>?]", "");
+            String macro = INVALID.matcher(arr[i]).replaceAll("");
             if (definedMacros.contains(macro)) {
-                String v = macros.get(macro);
+                CompiledMacro m = macros.get(macro);
+                String v = m != null ? m.value() : null;
                 arr[i] = arr[i].replace(macro, v);
-                if (v.matches(".+\\s.+")) {
+                if (INNER_SPACE.matcher(v).matches()) {
                     hasSpace = true;
                 }
             }
@@ -110,12 +237,12 @@ public class MeshLoader {
         if (hasSpace) {
             int l = 0;
             for (String s : arr) {
-                l += s.split("\\s+").length;
+                l += SPACES.split(s).length;
             }
             String[] arr1 = new String[l];
             int i = 0;
             for (String s : arr) {
-                String[] arr2 = s.split("\\s+");
+                String[] arr2 = SPACES.split(s);
                 for (String value : arr2) {
                     arr1[i] = value;
                     ++i;
@@ -127,7 +254,31 @@ public class MeshLoader {
     }
 
     private static boolean isIdValid(String id) {
-        return id.matches("^[A-Za-z$_][^`~!@#%^&*()\\-=+\\[{}\\];'\\\\:\"|,./<>?]?[A-Za-z0-9$_]*");
+        // [A-Za-z$_], then any char but the invalid ones, then [A-Za-z0-9$_]*
+        if (id.isEmpty() || !isIdPart(id.charAt(0)) || Character.isDigit(id.charAt(0))) {
+            return false;
+        }
+        int i = 1;
+        if (i < id.length()) {
+            int c = id.codePointAt(i);
+            if (INVALID_CHARS.indexOf(c) >= 0) {
+                return false;
+            }
+            i += Character.charCount(c);
+        }
+        for (; i < id.length(); i++) {
+            if (!isIdPart(id.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIdPart(char c) {
+        return c >= 'A' && c <= 'Z'
+            || c >= 'a' && c <= 'z'
+            || c >= '0' && c <= '9'
+            || c == '$' || c == '_';
     }
 
     private static boolean isIdInvalid(String id) {
@@ -162,196 +313,301 @@ public class MeshLoader {
     public static MeshFile loadf(ClassLoader cl,
                                  String file,
                                  MeshMacro... macros) {
-        try (InputStream is = cl.getResourceAsStream(file);
-             Scanner sc = new Scanner(Objects.requireNonNull(is),
-                 UTF_8.name())) {
+        try (InputStream is = Objects.requireNonNull(cl.getResourceAsStream(file))) {
             MeshFile mf = new MeshFile();
             Set<String> definedMacros = new HashSet<>();
-            MapStr2Str mmap = def(macros);
-            int currLn = 0;
-            while (sc.hasNextLine()) {
-                ++currLn;
-                String ln = sc.nextLine().trim();
-                // ignore comment
-                if (ln.startsWith("#") || ln.startsWith("//")) {
+            Map<String, CompiledMacro> mmap = new HashMap<>();
+            for (MeshMacro macro : macros) {
+                mmap.put(macro.name, new CompiledMacro(macro.value, 1));
+            }
+            MeshTokenizer tk = new MeshTokenizer(is);
+            while (tk.nextLine()) {
+                // ignore empty line and comment
+                if (!tk.split()) {
                     continue;
                 }
-                String[] arr = ln.split("\\s+");
-                // ignore empty line
-                if (arr.length == 0) {
+                if (!loadFast(tk, mf, definedMacros, mmap)) {
+                    loadLine(tk.lineString().trim(),
+                        tk.lineNumber,
+                        mf,
+                        definedMacros,
+                        mmap);
+                }
+            }
+            return mf;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Load the vertices and faces from the tokens. Tokens that are exactly
+     * a macro are expanded from the compiled macro.
+     *
+     * @return {@code false} if the line needs {@link #loadLine}
+     */
+    private static boolean loadFast(MeshTokenizer tk,
+                                    MeshFile mf,
+                                    Set<String> definedMacros,
+                                    Map<String, CompiledMacro> mmap) {
+        FloatArray floats;
+        if (tk.tokenEquals(0, VERT)) {
+            floats = mf.vertices;
+        } else if (tk.tokenEquals(0, VERT_COL)) {
+            floats = mf.colors;
+        } else if (tk.tokenEquals(0, VERT_TEX)) {
+            floats = mf.texCoords;
+        } else if (tk.tokenEquals(0, FACE)) {
+            floats = null;
+        } else {
+            return false;
+        }
+        // check length
+        if (tk.count < 2) {
+            except("Required 1 param at least but found 0",
+                tk.lineNumber);
+        }
+        CompiledMacro[] lineMacros = null;
+        boolean split = false;
+        if (!definedMacros.isEmpty() && tk.hasIdStart(1)) {
+            lineMacros = new CompiledMacro[tk.count];
+            for (int i = 1; i < tk.count; i++) {
+                if (!tk.tokenHasIdStart(i)) {
                     continue;
                 }
-                switch (arr[0]) {
-                    // macros
-                    case DEFINE: {
-                        // check length
-                        if (arr.length < 2) {
-                            except("Required 1 param at least but found 0",
-                                currLn);
-                        }
-                        // check identifier whether valid
-                        if (isIdInvalid(arr[1])) {
-                            except("Invalid identifier",
-                                currLn);
-                        }
-                        String[] arr2 = ln.split("\\s+", 3);
-                        String macro = arr2[1];
-                        if (!KEYWORDS.contains(macro)) {
-                            definedMacros.add(macro);
-                        }
-                        if (arr2.length > 2) {
-                            mmap.put(macro, arr2[2]);
-                        }
-                        break;
-                    }
-                    case UNDEF: {
-                        // check length
-                        if (arr.length != 2) {
-                            except("Required 1 param but found " + (arr.length - 2),
-                                currLn);
-                        }
-                        String macro = arr[1];
-                        // check whether defined
-                        if (!definedMacros.contains(macro)) {
-                            except("Macro " + macro + " not defined.",
-                                currLn);
-                        }
-                        definedMacros.remove(macro);
-                        mmap.remove(macro);
-                        break;
-                    }
-                    case REPEAT: {
-                        // check length
-                        if (arr.length < 4) {
-                            except("Required 3 param at least but found " + (arr.length - 1),
-                                currLn);
-                        }
-                        // check identifier whether valid
-                        if (isIdInvalid(arr[1])) {
-                            except("Invalid identifier",
-                                currLn);
-                        }
-                        String[] arr2 = ln.split("\\s+", 4);
-                        String macro = arr2[1];
-                        if (!KEYWORDS.contains(macro)) {
-                            definedMacros.add(macro);
-                        }
-                        String p2 = arr[2];
-                        int count = 0;
-                        try {
-                            count = parseInt(p2);
-                        } catch (NumberFormatException e) {
-                            except(p2 + " isn't a integer", currLn);
-                        }
-                        String p3 = arr2[3];
-                        StringBuilder result = new StringBuilder(p3);
-                        for (int i = 1; i < count; i++) {
-                            result.append(" ").append(p3);
-                        }
-                        mmap.put(macro, result.toString());
-                        break;
-                    }
-                    // macros end
-                    // settings
-                    case SET: {
-                        // check length
-                        if (arr.length != 3) {
-                            except("Required 2 params but found " +
-                                (arr.length - 1) + " param", currLn);
-                        }
-                        arr = replaceByMacro(arr, definedMacros, 2, mmap);
-                        // set vertDim
-                        String p2 = arr[2];
-                        try {
-                            switch (arr[1]) {
-                                case OPT_VERT_DIM:
-                                    mf.vertDim = parseInt(p2);
-                                    break;
-                                case OPT_COL_DIM:
-                                    mf.colorDim = parseInt(p2);
-                                    break;
-                                case OPT_TEX_DIM:
-                                    mf.texDim = parseInt(p2);
-                                    break;
-                            }
-                        } catch (NumberFormatException e) {
-                            except(p2 + " isn't a number", currLn);
-                        }
-                        break;
+                String token = tk.tokenString(i);
+                String macro = removeInvalidChars(token);
+                if (!definedMacros.contains(macro)) {
+                    continue;
+                }
+                CompiledMacro m = mmap.get(macro);
+                // a macro inside a token is replaced as a string
+                if (m == null || !macro.equals(token)) {
+                    return false;
+                }
+                lineMacros[i] = m;
+                split |= m.spaced;
+            }
+        }
+        if (floats == null) {
+            mf.indexed = true;
+            for (int i = 1; i < tk.count; i++) {
+                if (lineMacros != null && lineMacros[i] != null) {
+                    lineMacros[i].addInts(mf.indices, split);
+                    continue;
+                }
+                try {
+                    mf.indices.add(tk.parseInt(i));
+                } catch (NumberFormatException ignore) {
+                }
+            }
+            return true;
+        }
+        if (floats == mf.colors) {
+            mf.colored = true;
+        } else if (floats == mf.texCoords) {
+            mf.textured = true;
+        }
+        for (int i = 1; i < tk.count; i++) {
+            if (lineMacros != null && lineMacros[i] != null) {
+                lineMacros[i].addFloats(floats, split);
+                continue;
+            }
+            try {
+                floats.add(tk.parseFloat(i));
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        return true;
+    }
+
+    private static String removeInvalidChars(String token) {
+        StringBuilder sb = null;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (INVALID_CHARS.indexOf(c) >= 0) {
+                if (sb == null) {
+                    sb = new StringBuilder(token.length());
+                    sb.append(token, 0, i);
+                }
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : token;
+    }
+
+    /**
+     * Load a line with the macros replaced.
+     */
+    private static void loadLine(String ln,
+                                 int currLn,
+                                 MeshFile mf,
+                                 Set<String> definedMacros,
+                                 Map<String, CompiledMacro> mmap) {
+        String[] arr = SPACES.split(ln);
+        switch (arr[0]) {
+            // macros
+            case DEFINE: {
+                // check length
+                if (arr.length < 2) {
+                    except("Required 1 param at least but found 0",
+                        currLn);
+                }
+                // check identifier whether valid
+                if (isIdInvalid(arr[1])) {
+                    except("Invalid identifier",
+                        currLn);
+                }
+                String[] arr2 = SPACES.split(ln, 3);
+                String macro = arr2[1];
+                if (!KEYWORDS.contains(macro)) {
+                    definedMacros.add(macro);
+                }
+                if (arr2.length > 2) {
+                    mmap.put(macro, new CompiledMacro(arr2[2], 1));
+                }
+                break;
+            }
+            case UNDEF: {
+                // check length
+                if (arr.length != 2) {
+                    except("Required 1 param but found " + (arr.length - 2),
+                        currLn);
+                }
+                String macro = arr[1];
+                // check whether defined
+                if (!definedMacros.contains(macro)) {
+                    except("Macro " + macro + " not defined.",
+                        currLn);
+                }
+                definedMacros.remove(macro);
+                mmap.remove(macro);
+                break;
+            }
+            case REPEAT: {
+                // check length
+                if (arr.length < 4) {
+                    except("Required 3 param at least but found " + (arr.length - 1),
+                        currLn);
+                }
+                // check identifier whether valid
+                if (isIdInvalid(arr[1])) {
+                    except("Invalid identifier",
+                        currLn);
+                }
+                String[] arr2 = SPACES.split(ln, 4);
+                String macro = arr2[1];
+                if (!KEYWORDS.contains(macro)) {
+                    definedMacros.add(macro);
+                }
+                String p2 = arr[2];
+                int count = 0;
+                try {
+                    count = parseInt(p2);
+                } catch (NumberFormatException e) {
+                    except(p2 + " isn't a integer", currLn);
+                }
+                // the repeated string is only built if a line needs it
+                mmap.put(macro, new CompiledMacro(arr2[3], count));
+                break;
+            }
+            // macros end
+            // settings
+            case SET: {
+                // check length
+                if (arr.length != 3) {
+                    except("Required 2 params but found " +
+                        (arr.length - 1) + " param", currLn);
+                }
+                arr = replaceByMacro(arr, definedMacros, 2, mmap);
+                // set vertDim
+                String p2 = arr[2];
+                try {
+                    switch (arr[1]) {
+                        case OPT_VERT_DIM:
+                            mf.vertDim = parseInt(p2);
+                            break;
+                        case OPT_COL_DIM:
+                            mf.colorDim = parseInt(p2);
+                            break;
+                        case OPT_TEX_DIM:
+                            mf.texDim = parseInt(p2);
+                            break;
                     }
-                    // settings end
-                    // vertices
-                    case VERT: {
-                        // check length
-                        if (arr.length < 2) {
-                            except("Required 1 param at least but found 0",
-                                currLn);
-                        }
-                        arr = replaceByMacro(arr, definedMacros, mmap);
-                        for (int i = 1; i < arr.length; i++) {
-                            try {
-                                mf.vertices.add(parseFloat(arr[i]));
-                            } catch (NumberFormatException ignore) {
-                            }
-                        }
-                        break;
+                } catch (NumberFormatException e) {
+                    except(p2 + " isn't a number", currLn);
+                }
+                break;
+            }
+            // settings end
+            // vertices
+            case VERT: {
+                // check length
+                if (arr.length < 2) {
+                    except("Required 1 param at least but found 0",
+                        currLn);
+                }
+                arr = replaceByMacro(arr, definedMacros, mmap);
+                for (int i = 1; i < arr.length; i++) {
+                    try {
+                        mf.vertices.add(parseFloat(arr[i]));
+                    } catch (NumberFormatException ignore) {
                     }
-                    case VERT_COL: {
-                        // check length
-                        if (arr.length < 2) {
-                            except("Required 1 param at least but found 0",
-                                currLn);
-                        }
-                        arr = replaceByMacro(arr, definedMacros, mmap);
-                        mf.colored = true;
-                        for (int i = 1; i < arr.length; i++) {
-                            try {
-                                mf.colors.add(parseFloat(arr[i]));
-                            } catch (NumberFormatException ignore) {
-                            }
-                        }
-                        break;
+                }
+                break;
+            }
+            case VERT_COL: {
+                // check length
+                if (arr.length < 2) {
+                    except("Required 1 param at least but found 0",
+                        currLn);
+                }
+                arr = replaceByMacro(arr, definedMacros, mmap);
+                mf.colored = true;
+                for (int i = 1; i < arr.length; i++) {
+                    try {
+                        mf.colors.add(parseFloat(arr[i]));
+                    } catch (NumberFormatException ignore) {
                     }
-                    case VERT_TEX: {
-                        // check length
-                        if (arr.length < 2) {
-                            except("Required 1 param at least but found 0",
-                                currLn);
-                        }
-                        arr = replaceByMacro(arr, definedMacros, mmap);
-                        mf.textured = true;
-                        for (int i = 1; i < arr.length; i++) {
-                            try {
-                                mf.texCoords.add(parseFloat(arr[i]));
-                            } catch (NumberFormatException ignore) {
-                            }
-                        }
-                        break;
+                }
+                break;
+            }
+            case VERT_TEX: {
+                // check length
+                if (arr.length < 2) {
+                    except("Required 1 param at least but found 0",
+                        currLn);
+                }
+                arr = replaceByMacro(arr, definedMacros, mmap);
+                mf.textured = true;
+                for (int i = 1; i < arr.length; i++) {
+                    try {
+                        mf.texCoords.add(parseFloat(arr[i]));
+                    } catch (NumberFormatException ignore) {
                     }
-                    // vertices end
-                    // face
-                    case FACE: {
-                        // check length
-                        if (arr.length < 2) {
-                            except("Required 1 param at least but found 0",
-                                currLn);
-                        }
-                        arr = replaceByMacro(arr, definedMacros, mmap);
-                        mf.indexed = true;
-                        for (int i = 1; i < arr.length; i++) {
-                            try {
-                                mf.indices.add(parseInt(arr[i]));
-                            } catch (NumberFormatException ignore) {
-                            }
-                        }
-                        break;
+                }
+                break;
+            }
+            // vertices end
+            // face
+            case FACE: {
+                // check length
+                if (arr.length < 2) {
+                    except("Required 1 param at least but found 0",
+                        currLn);
+                }
+                arr = replaceByMacro(arr, definedMacros, mmap);
+                mf.indexed = true;
+                for (int i = 1; i < arr.length; i++) {
+                    try {
+                        mf.indices.add(parseInt(arr[i]));
+                    } catch (NumberFormatException ignore) {
                     }
-                    // face end
                 }
+                break;
             }
-            return mf;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            // face end
         }
     }
 
@@ -372,22 +628,112 @@ public class MeshLoader {
            Consumer<T> pre,
            Class<T> clazz,
            MeshMacro... macros) {
+        return load(cl, file, pre, clazz, false, macros);
+    }
+
+    /**
+     * load
+     *
+     * @param cl       class loader
+     * @param file     filename
+     * @param pre      pre-operations
+     * @param clazz    target class
+     * @param optimize reorder the triangles and vertices with
+     *                 {@link MeshOptimizer} if the mesh is indexed;
+     *                 the faces must be triangles
+     * @param macros   macros
+     * @param <T>      mesh type
+     * @return mesh
+     * @since 1.6.0
+     */
+    public static <T extends BaseMesh<T>>
+    T load(ClassLoader cl,
+           String file,
+           Consumer<T> pre,
+           Class<T> clazz,
+           boolean optimize,
+           MeshMacro... macros) {
+        return parse(cl, file, pre, clazz, optimize, macros).get();
+    }
+
+    /**
+     * Parse and optimize a mesh file on the calling thread, without touching
+     * GL. The returned supplier creates and uploads the mesh, and must be
+     * called on the thread that owns the GL context.
+     *
+     * @param cl       class loader
+     * @param file     filename
+     * @param pre      pre-operations
+     * @param clazz    target class
+     * @param optimize reorder the triangles and vertices with
+     *                 {@link MeshOptimizer} if the mesh is indexed;
+     *                 the faces must be triangles
+     * @param macros   macros
+     * @param <T>      mesh type
+     * @return the upload step
+     * @see BatchLoader
+     * @since 1.6.0
+     */
+    public static <T extends BaseMesh<T>>
+    Supplier<T> parse(ClassLoader cl,
+                      String file,
+                      Consumer<T> pre,
+                      Class<T> clazz,
+                      boolean optimize,
+                      MeshMacro... macros) {
         MeshFile mf = loadf(cl, file, macros);
-        T mesh = GLUtils.newClass(clazz);
-        if (pre != null) {
-            pre.accept(mesh);
-        }
-        mesh.vertDim(mf.vertDim).vertices(mf.vertices.toFArray());
-        if (mf.colored) {
-            mesh.colorDim(mf.colorDim).colors(mf.colors.toFArray());
+        float[][] attributes = {
+            mf.vertices.toFArray(),
+            mf.colored ? mf.colors.toFArray() : null,
+            mf.textured ? mf.texCoords.toFArray() : null
+        };
+        int[] indices = mf.indexed ? mf.indices.toIArray() : null;
+        if (optimize && indices != null) {
+            indices = MeshOptimizer.optimize(indices,
+                attributes[0].length / mf.vertDim,
+                attributes,
+                new int[]{mf.vertDim, mf.colorDim, mf.texDim});
         }
-        if (mf.textured) {
-            mesh.texDim(mf.texDim).texCoords(mf.texCoords.toFArray());
-        }
-        if (mf.indexed) {
-            mesh.indices(mf.indices.toIArray());
-        }
-        return mesh;
+        int[] ind = indices;
+        return () -> {
+            T mesh = GLUtils.newClass(clazz);
+            if (pre != null) {
+                pre.accept(mesh);
+            }
+            mesh.vertDim(mf.vertDim).vertices(attributes[0]);
+            if (mf.colored) {
+                mesh.colorDim(mf.colorDim).colors(attributes[1]);
+            }
+            if (mf.textured) {
+                mesh.texDim(mf.texDim).texCoords(attributes[2]);
+            }
+            if (ind != null) {
+                mesh.indices(ind);
+            }
+            return mesh;
+        };
+    }
+
+    /**
+     * Parse a mesh file for {@link Mesh3} without touching GL.
+     *
+     * @param cl       class loader
+     * @param file     filename
+     * @param pre      pre-operations
+     * @param optimize reorder the triangles and vertices with
+     *                 {@link MeshOptimizer} if the mesh is indexed
+     * @param macros   macros
+     * @return the upload step
+     * @see #parse(ClassLoader, String, Consumer, Class, boolean, MeshMacro...)
+     * @since 1.6.0
+     */
+    public static Supplier<Mesh3> parse3(ClassLoader cl,
+                                         String file,
+                                         Consumer<Mesh3> pre,
+                                         boolean optimize,
+                                         MeshMacro... macros) {
+        Supplier<Mesh3> upload = parse(cl, file, pre, Mesh3.class, optimize, macros);
+        return () -> upload.get().unbindVao();
     }
 
     /**
@@ -417,7 +763,63 @@ public class MeshLoader {
                               String file,
                               Consumer<Mesh3> pre,
                               MeshMacro... macros) {
-        return load(cl, file, pre, Mesh3.class, macros).unbindVao();
+        return load3(cl, file, pre, false, macros);
+    }
+
+    /**
+     * load
+     *
+     * @param cl       class loader
+     * @param file     filename
+     * @param pre      pre-operations
+     * @param optimize reorder the triangles and vertices with
+     *                 {@link MeshOptimizer} if the mesh is indexed
+     * @param macros   macros
+     * @return mesh
+     * @since 1.6.0
+     */
+    public static Mesh3 load3(ClassLoader cl,
+                              String file,
+                              Consumer<Mesh3> pre,
+                              boolean optimize,
+                              MeshMacro... macros) {
+        return parse3(cl, file, pre, optimize, macros).get();
+    }
+
+    /**
+     * Load a mesh file and write it in the binary format, with the macros
+     * expanded.
+     *
+     * @param cl     class loader
+     * @param file   filename
+     * @param out    the output file
+     * @param macros macros
+     * @see MeshBinary
+     * @since 1.6.0
+     */
+    public static void compile(ClassLoader cl,
+                               String file,
+                               Path out,
+                               MeshMacro... macros) {
+        MeshBinary.write(loadf(cl, file, macros), out);
+    }
+
+    /**
+     * Load a binary mesh file by memory mapping.
+     *
+     * @param file the binary mesh file
+     * @param pre  pre-operations
+     * @return mesh
+     * @see #compile(ClassLoader, String, Path, MeshMacro...)
+     * @since 1.6.0
+     */
+    public static Mesh3 load3(Path file,
+                              Consumer<Mesh3> pre) {
+        Mesh3 mesh = new Mesh3();
+        if (pre != null) {
+            pre.accept(mesh);
+        }
+        return MeshBinary.map(file).upload(mesh);
     }
 
     /**
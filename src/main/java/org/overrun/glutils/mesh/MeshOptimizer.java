@@ -0,0 +1,338 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import java.util.Arrays;
+
+/**
+ * Index buffer optimizations for the post-transform vertex cache.
+ * <p>
+ * All methods work on triangle lists on the CPU and don't call OpenGL.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class MeshOptimizer {
+    /**
+     * The FIFO cache size used by {@link #acmr(int[])}.
+     */
+    public static final int FIFO_CACHE_SIZE = 16;
+    /**
+     * The LRU cache size simulated by the reordering.
+     */
+    public static final int LRU_CACHE_SIZE = 32;
+    private static final float CACHE_DECAY_POWER = 1.5f;
+    private static final float LAST_TRI_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+    private static final float VALENCE_BOOST_POWER = 0.5f;
+
+    private static final int MAX_VALENCE = 32;
+    private static final float[] CACHE_SCORES = new float[LRU_CACHE_SIZE];
+    private static final float[] VALENCE_SCORES = new float[MAX_VALENCE];
+
+    static {
+        for (int i = 0; i < LRU_CACHE_SIZE; i++) {
+            CACHE_SCORES[i] = cacheScore(i);
+        }
+        for (int i = 1; i < MAX_VALENCE; i++) {
+            VALENCE_SCORES[i] = valenceScore(i);
+        }
+    }
+
+    private static float cacheScore(int cachePos) {
+        if (cachePos < 3) {
+            // the vertices of last triangle get a fixed score,
+            // so the next triangle doesn't simply reuse the same edge
+            return LAST_TRI_SCORE;
+        }
+        float scaler = 1.0f / (LRU_CACHE_SIZE - 3);
+        return (float) Math.pow(1.0f - (cachePos - 3) * scaler,
+            CACHE_DECAY_POWER);
+    }
+
+    private static float valenceScore(int liveTris) {
+        // prefer the vertices with few triangles left, to finish them off
+        return VALENCE_BOOST_SCALE *
+            (float) Math.pow(liveTris, -VALENCE_BOOST_POWER);
+    }
+
+    private static float vertexScore(int cachePos, int liveTris) {
+        if (liveTris == 0) {
+            // no triangle needs this vertex anymore
+            return -1;
+        }
+        return (cachePos >= 0 ? CACHE_SCORES[cachePos] : 0)
+            + (liveTris < MAX_VALENCE
+            ? VALENCE_SCORES[liveTris]
+            : valenceScore(liveTris));
+    }
+
+    /**
+     * Reorder the triangles to reduce the vertex cache misses, with Tom
+     * Forsyth's linear-speed algorithm.
+     *
+     * @param indices     triangle list indices
+     * @param vertexCount vertex count
+     * @return the reordered indices
+     */
+    public static int[] optimizeVertexCache(int[] indices, int vertexCount) {
+        int triCount = indices.length / 3;
+        int[] out = new int[triCount * 3];
+        if (triCount == 0) {
+            return out;
+        }
+        // the triangles of each vertex; the live ones are kept in front
+        int[] liveTris = new int[vertexCount];
+        for (int i = 0; i < triCount * 3; i++) {
+            ++liveTris[indices[i]];
+        }
+        int[] offsets = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] = offsets[v] + liveTris[v];
+        }
+        int[] adjacency = new int[triCount * 3];
+        int[] fill = Arrays.copyOf(offsets, vertexCount);
+        for (int i = 0; i < triCount * 3; i++) {
+            adjacency[fill[indices[i]]++] = i / 3;
+        }
+
+        int[] cachePos = new int[vertexCount];
+        Arrays.fill(cachePos, -1);
+        float[] vertexScores = new float[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            vertexScores[v] = vertexScore(-1, liveTris[v]);
+        }
+        boolean[] emitted = new boolean[triCount];
+        int best = 0;
+        float bestScore = -1;
+        for (int t = 0; t < triCount; t++) {
+            int i = t * 3;
+            float score = vertexScores[indices[i]]
+                + vertexScores[indices[i + 1]]
+                + vertexScores[indices[i + 2]];
+            if (score > bestScore) {
+                bestScore = score;
+                best = t;
+            }
+        }
+
+        // 3 extra slots keep the evicted vertices for rescoring
+        int[] cache = new int[LRU_CACHE_SIZE + 3];
+        int[] newCache = new int[LRU_CACHE_SIZE + 3];
+        int cacheCount = 0;
+        int cursor = 0;
+        for (int n = 0; n < triCount; n++) {
+            if (best < 0) {
+                // dead end; restart from the next triangle in input order
+                while (emitted[cursor]) {
+                    ++cursor;
+                }
+                best = cursor;
+            }
+            int bi = best * 3;
+            int a = indices[bi], b = indices[bi + 1], c = indices[bi + 2];
+            out[n * 3] = a;
+            out[n * 3 + 1] = b;
+            out[n * 3 + 2] = c;
+            emitted[best] = true;
+            for (int k = 0; k < 3; k++) {
+                int v = indices[bi + k];
+                int begin = offsets[v];
+                int end = begin + liveTris[v] - 1;
+                for (int j = begin; j <= end; j++) {
+                    if (adjacency[j] == best) {
+                        adjacency[j] = adjacency[end];
+                        adjacency[end] = best;
+                        break;
+                    }
+                }
+                --liveTris[v];
+            }
+
+            newCache[0] = a;
+            newCache[1] = b;
+            newCache[2] = c;
+            int newCount = 3;
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                if (v != a && v != b && v != c) {
+                    newCache[newCount++] = v;
+                }
+            }
+            int[] tmp = cache;
+            cache = newCache;
+            newCache = tmp;
+            cacheCount = newCount;
+
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                cachePos[v] = i < LRU_CACHE_SIZE ? i : -1;
+                vertexScores[v] = vertexScore(cachePos[v], liveTris[v]);
+            }
+            best = -1;
+            bestScore = -1;
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                for (int j = offsets[v], end = j + liveTris[v]; j < end; j++) {
+                    int t = adjacency[j];
+                    int ti = t * 3;
+                    float score = vertexScores[indices[ti]]
+                        + vertexScores[indices[ti + 1]]
+                        + vertexScores[indices[ti + 2]];
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = t;
+                    }
+                }
+            }
+            if (cacheCount > LRU_CACHE_SIZE) {
+                cacheCount = LRU_CACHE_SIZE;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Renumber the vertices in the order they are first used, so the vertex
+     * data is fetched sequentially.
+     *
+     * @param indices     indices, renumbered in place
+     * @param vertexCount vertex count
+     * @param remap       the array with at least {@code vertexCount} elements
+     *                    to receive the new index of each vertex, or -1 for
+     *                    unused vertices
+     * @return the count of used vertices
+     */
+    public static int optimizeVertexFetch(int[] indices,
+                                          int vertexCount,
+                                          int[] remap) {
+        Arrays.fill(remap, 0, vertexCount, -1);
+        int next = 0;
+        for (int i = 0; i < indices.length; i++) {
+            int v = indices[i];
+            if (remap[v] < 0) {
+                remap[v] = next++;
+            }
+            indices[i] = remap[v];
+        }
+        return next;
+    }
+
+    /**
+     * Reorder vertex data with the remap table.
+     *
+     * @param data        vertex data; an empty array is returned as is
+     * @param dim         the count of components per vertex
+     * @param remap       the remap table
+     * @param vertexCount the count of used vertices
+     * @return the reordered data
+     * @see #optimizeVertexFetch(int[], int, int[])
+     */
+    public static float[] remap(float[] data,
+                                int dim,
+                                int[] remap,
+                                int vertexCount) {
+        if (data.length == 0) {
+            return data;
+        }
+        float[] out = new float[vertexCount * dim];
+        int count = Math.min(remap.length, data.length / dim);
+        for (int v = 0; v < count; v++) {
+            int r = remap[v];
+            if (r >= 0) {
+                System.arraycopy(data, v * dim, out, r * dim, dim);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Reorder the triangles for the vertex cache and the vertices for
+     * fetching.
+     *
+     * @param indices     triangle list indices
+     * @param vertexCount vertex count
+     * @param attributes  the vertex attributes, replaced by the reordered
+     *                    arrays
+     * @param dims        the dimensions of each attribute
+     * @return the new indices
+     */
+    public static int[] optimize(int[] indices,
+                                 int vertexCount,
+                                 float[][] attributes,
+                                 int[] dims) {
+        int[] result = optimizeVertexCache(indices, vertexCount);
+        int[] remap = new int[vertexCount];
+        int count = optimizeVertexFetch(result, vertexCount, remap);
+        for (int i = 0; i < attributes.length; i++) {
+            if (attributes[i] != null) {
+                attributes[i] = remap(attributes[i], dims[i], remap, count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the average cache miss ratio with a FIFO cache of
+     * {@link #FIFO_CACHE_SIZE} vertices.
+     *
+     * @param indices triangle list indices
+     * @return the transformed vertex count per triangle, from 0.5 in the
+     * best case to 3
+     */
+    public static float acmr(int[] indices) {
+        return acmr(indices, FIFO_CACHE_SIZE);
+    }
+
+    /**
+     * Get the average cache miss ratio with a FIFO cache.
+     *
+     * @param indices   triangle list indices
+     * @param cacheSize the cache size
+     * @return the transformed vertex count per triangle
+     */
+    public static float acmr(int[] indices, int cacheSize) {
+        int triCount = indices.length / 3;
+        if (triCount == 0) {
+            return 0;
+        }
+        int max = 0;
+        for (int i : indices) {
+            max = Math.max(max, i);
+        }
+        // the miss count when each vertex entered the cache
+        int[] stamps = new int[max + 1];
+        int misses = 0;
+        for (int i = 0; i < triCount * 3; i++) {
+            int v = indices[i];
+            if (stamps[v] == 0 || misses - stamps[v] >= cacheSize) {
+                stamps[v] = ++misses;
+            }
+        }
+        return (float) misses / triCount;
+    }
+}
@@ -0,0 +1,561 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import java.util.Arrays;
+
+/**
+ * Quadric error mesh simplifier.
+ * <p>
+ * Edges are collapsed onto one of their vertices, so every level of detail
+ * shares the vertex data and only the indices change. Border vertices and
+ * vertices on attribute seams (different vertices at the same position) are
+ * never moved. All methods work on triangle lists on the CPU.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class MeshSimplifier {
+    private static final int Q_SIZE = 11;
+
+    /**
+     * A simplified index set.
+     */
+    public static class Level {
+        /**
+         * the triangle indices
+         */
+        public final int[] indices;
+        /**
+         * an upper bound of the distance from the vertices of the full mesh
+         * to this level, in the units of the positions
+         */
+        public final float error;
+
+        /**
+         * construct
+         *
+         * @param indices the triangle indices
+         * @param error   the max geometric error
+         */
+        public Level(int[] indices, float error) {
+            this.indices = indices;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Generate levels of detail from the full mesh.
+     *
+     * @param indices   triangle list indices
+     * @param positions positions
+     * @param dim       the position dimensions; at least 3
+     * @param levels    the level count, including the full mesh; at least 1
+     * @param ratio     the triangle ratio between two levels, in (0, 1),
+     *                  e.g. 0.5
+     * @return the levels, from the full mesh
+     * @throws IllegalArgumentException if the level count or ratio is out
+     *                                  of range
+     */
+    public static Level[] generateLods(int[] indices,
+                                       float[] positions,
+                                       int dim,
+                                       int levels,
+                                       float ratio) {
+        if (levels < 1) {
+            throw new IllegalArgumentException("At least 1 level is required, got " + levels);
+        }
+        if (!(ratio > 0 && ratio < 1)) {
+            throw new IllegalArgumentException("The ratio must be in (0, 1), got " + ratio);
+        }
+        Level[] result = new Level[levels];
+        result[0] = new Level(indices, 0);
+        State state = new State(indices, positions, dim);
+        float target = indices.length;
+        for (int i = 1; i < levels; i++) {
+            target *= ratio;
+            // continue from the last level, the quadrics keep the error to the full mesh
+            state.run((int) target / 3 * 3, Double.MAX_VALUE);
+            result[i] = state.toLevel();
+        }
+        return result;
+    }
+
+    /**
+     * Simplify the mesh until the index count reaches the target, or no
+     * edge can be collapsed within the error.
+     *
+     * @param indices          triangle list indices
+     * @param positions        positions
+     * @param dim              the position dimensions; at least 3
+     * @param targetIndexCount the target index count
+     * @param maxError         the max geometric error of a collapse,
+     *                         estimated by the quadrics
+     * @return the simplified indices
+     */
+    public static Level simplify(int[] indices,
+                                 float[] positions,
+                                 int dim,
+                                 int targetIndexCount,
+                                 float maxError) {
+        State state = new State(indices, positions, dim);
+        state.run(targetIndexCount, (double) maxError * maxError);
+        return state.toLevel();
+    }
+
+    private static final class State {
+        private final float[] positions;
+        private final int dim;
+        private final int vertexCount;
+        private final int[] tris;
+        private int triCount;
+        private final boolean[] locked;
+        private final double[] quadrics;
+        private final int[] collapse;
+        private final boolean[] touched;
+        /**
+         * the vertex that each vertex is collapsed into
+         */
+        private final int[] target;
+        /**
+         * the vertices used by the full mesh
+         */
+        private final boolean[] used;
+
+        State(int[] indices, float[] positions, int dim) {
+            this.positions = positions;
+            this.dim = dim;
+            vertexCount = positions.length / dim;
+            tris = indices.clone();
+            triCount = tris.length / 3;
+            locked = lockVertices(tris, positions, dim, vertexCount);
+            quadrics = new double[vertexCount * Q_SIZE];
+            for (int t = 0; t < triCount; t++) {
+                addTriangleQuadric(quadrics, positions, dim, tris, t * 3);
+            }
+            collapse = new int[vertexCount];
+            touched = new boolean[vertexCount];
+            target = new int[vertexCount];
+            used = new boolean[vertexCount];
+            for (int v = 0; v < vertexCount; v++) {
+                target[v] = v;
+            }
+            for (int i : tris) {
+                used[i] = true;
+            }
+        }
+
+        Level toLevel() {
+            return new Level(Arrays.copyOf(tris, triCount * 3), (float) measureError());
+        }
+
+        /**
+         * Measure the max distance from the vertices of the full mesh to the
+         * triangles around the vertex they are collapsed into. The distance
+         * to the whole surface is never larger.
+         */
+        private double measureError() {
+            int n = triCount * 3;
+            int[] adjOffsets = new int[vertexCount + 1];
+            for (int i = 0; i < n; i++) {
+                ++adjOffsets[tris[i] + 1];
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                adjOffsets[v + 1] += adjOffsets[v];
+            }
+            int[] adjacency = new int[n];
+            int[] fill = Arrays.copyOf(adjOffsets, vertexCount);
+            for (int i = 0; i < n; i++) {
+                adjacency[fill[tris[i]]++] = i / 3;
+            }
+            double max = 0;
+            for (int w = 0; w < vertexCount; w++) {
+                int r = target[w];
+                if (!used[w] || r == w && adjOffsets[w] != adjOffsets[w + 1]) {
+                    // a kept vertex lies on its own triangles
+                    continue;
+                }
+                double best = Double.MAX_VALUE;
+                if (adjOffsets[r] != adjOffsets[r + 1]) {
+                    for (int j = adjOffsets[r]; j < adjOffsets[r + 1]; j++) {
+                        best = Math.min(best, distance(positions, dim, w, tris, adjacency[j] * 3));
+                    }
+                } else {
+                    // the triangles around r are all removed
+                    for (int t = 0; t < n; t += 3) {
+                        best = Math.min(best, distance(positions, dim, w, tris, t));
+                    }
+                }
+                if (best != Double.MAX_VALUE) {
+                    max = Math.max(max, best);
+                }
+            }
+            return max;
+        }
+
+        void run(int targetIndexCount, double maxCost) {
+            while (triCount * 3 > targetIndexCount) {
+                // the candidates of this pass, sorted by cost
+                int[] from = new int[triCount * 3];
+                int[] to = new int[triCount * 3];
+                double[] costs = new double[triCount * 3];
+                long[] order = new long[triCount * 3];
+                int count = 0;
+                for (int i = 0; i < triCount * 3; i++) {
+                    int a = tris[i];
+                    int b = tris[i % 3 == 2 ? i - 2 : i + 1];
+                    // every unlocked edge is shared by two triangles, visit it once
+                    if (a > b) {
+                        continue;
+                    }
+                    for (int k = 0; k < 2; k++) {
+                        int u = k == 0 ? a : b;
+                        int v = k == 0 ? b : a;
+                        if (!locked[u]) {
+                            double cost = collapseCost(quadrics, positions, dim, u, v);
+                            from[count] = u;
+                            to[count] = v;
+                            costs[count] = cost;
+                            // non-negative floats sort the same as their bits
+                            order[count] = (long) Float.floatToIntBits((float) cost) << 32 | count;
+                            ++count;
+                        }
+                    }
+                }
+                Arrays.sort(order, 0, count);
+
+                int[] adjOffsets = new int[vertexCount + 1];
+                for (int i = 0; i < triCount * 3; i++) {
+                    ++adjOffsets[tris[i] + 1];
+                }
+                for (int v = 0; v < vertexCount; v++) {
+                    adjOffsets[v + 1] += adjOffsets[v];
+                }
+                int[] adjacency = new int[triCount * 3];
+                int[] fill = Arrays.copyOf(adjOffsets, vertexCount);
+                for (int i = 0; i < triCount * 3; i++) {
+                    adjacency[fill[tris[i]]++] = i / 3;
+                }
+
+                Arrays.fill(collapse, -1);
+                Arrays.fill(touched, false);
+                int remaining = triCount;
+                boolean progress = false;
+                for (int k = 0; k < count; k++) {
+                    if (remaining * 3 <= targetIndexCount) {
+                        break;
+                    }
+                    int c = (int) order[k];
+                    if (costs[c] > maxCost) {
+                        break;
+                    }
+                    int u = from[c], v = to[c];
+                    if (touched[u] || touched[v]
+                        || flips(tris, adjacency, adjOffsets, positions, dim, u, v)) {
+                        continue;
+                    }
+                    collapse[u] = v;
+                    for (int j = adjOffsets[u]; j < adjOffsets[u + 1]; j++) {
+                        int t = adjacency[j] * 3;
+                        boolean hasV = false;
+                        for (int e = 0; e < 3; e++) {
+                            touched[tris[t + e]] = true;
+                            hasV |= tris[t + e] == v;
+                        }
+                        if (hasV) {
+                            --remaining;
+                        }
+                    }
+                    for (int q = 0; q < Q_SIZE; q++) {
+                        quadrics[v * Q_SIZE + q] += quadrics[u * Q_SIZE + q];
+                    }
+                    progress = true;
+                }
+                if (!progress) {
+                    break;
+                }
+                for (int w = 0; w < vertexCount; w++) {
+                    int r = collapse[target[w]];
+                    if (r >= 0) {
+                        target[w] = r;
+                    }
+                }
+                int n = 0;
+                for (int t = 0; t < triCount; t++) {
+                    int a = tris[t * 3], b = tris[t * 3 + 1], c = tris[t * 3 + 2];
+                    if (collapse[a] >= 0) {
+                        a = collapse[a];
+                    }
+                    if (collapse[b] >= 0) {
+                        b = collapse[b];
+                    }
+                    if (collapse[c] >= 0) {
+                        c = collapse[c];
+                    }
+                    if (a != b && b != c && c != a) {
+                        tris[n++] = a;
+                        tris[n++] = b;
+                        tris[n++] = c;
+                    }
+                }
+                triCount = n / 3;
+            }
+        }
+    }
+
+    /**
+     * Lock the vertices on borders and attribute seams.
+     */
+    private static boolean[] lockVertices(int[] tris,
+                                          float[] positions,
+                                          int dim,
+                                          int vertexCount) {
+        VertexWelder.Result welded = VertexWelder.weld(new float[][]{positions},
+            new int[]{dim},
+            vertexCount);
+        int[] ids = welded.indices;
+        int[] duplicates = new int[welded.vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            ++duplicates[ids[v]];
+        }
+        boolean[] locked = new boolean[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            locked[v] = duplicates[ids[v]] > 1;
+        }
+        // a directed edge without the reverse edge is on the border
+        int capacity = Integer.highestOneBit(Math.max(tris.length, 1) * 2 - 1) << 1;
+        long[] edges = new long[capacity];
+        Arrays.fill(edges, -1);
+        for (int i = 0; i < tris.length; i++) {
+            int a = ids[tris[i]], b = ids[tris[i % 3 == 2 ? i - 2 : i + 1]];
+            long key = (long) a << 32 | b;
+            int slot = mix(key) & (capacity - 1);
+            while (edges[slot] != -1 && edges[slot] != key) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            edges[slot] = key;
+        }
+        for (int i = 0; i < tris.length; i++) {
+            int a = ids[tris[i]], b = ids[tris[i % 3 == 2 ? i - 2 : i + 1]];
+            long key = (long) b << 32 | a;
+            int slot = mix(key) & (capacity - 1);
+            while (edges[slot] != -1 && edges[slot] != key) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (edges[slot] == -1) {
+                locked[tris[i]] = true;
+                locked[tris[i % 3 == 2 ? i - 2 : i + 1]] = true;
+            }
+        }
+        return locked;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static void addTriangleQuadric(double[] quadrics,
+                                           float[] positions,
+                                           int dim,
+                                           int[] tris,
+                                           int t) {
+        int i0 = tris[t] * dim, i1 = tris[t + 1] * dim, i2 = tris[t + 2] * dim;
+        double x0 = positions[i0], y0 = positions[i0 + 1], z0 = positions[i0 + 2];
+        double ux = positions[i1] - x0, uy = positions[i1 + 1] - y0, uz = positions[i1 + 2] - z0;
+        double vx = positions[i2] - x0, vy = positions[i2 + 1] - y0, vz = positions[i2 + 2] - z0;
+        double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+        double len = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (len == 0) {
+            return;
+        }
+        nx /= len;
+        ny /= len;
+        nz /= len;
+        double d = -(nx * x0 + ny * y0 + nz * z0);
+        // weighted by area
+        double w = len * 0.5;
+        for (int k = 0; k < 3; k++) {
+            int q = tris[t + k] * Q_SIZE;
+            quadrics[q] += w * nx * nx;
+            quadrics[q + 1] += w * nx * ny;
+            quadrics[q + 2] += w * nx * nz;
+            quadrics[q + 3] += w * nx * d;
+            quadrics[q + 4] += w * ny * ny;
+            quadrics[q + 5] += w * ny * nz;
+            quadrics[q + 6] += w * ny * d;
+            quadrics[q + 7] += w * nz * nz;
+            quadrics[q + 8] += w * nz * d;
+            quadrics[q + 9] += w * d * d;
+            quadrics[q + 10] += w;
+        }
+    }
+
+    /**
+     * Get the mean squared distance from the position of v to the planes of
+     * both vertices.
+     */
+    private static double collapseCost(double[] quadrics,
+                                       float[] positions,
+                                       int dim,
+                                       int u,
+                                       int v) {
+        double x = positions[v * dim], y = positions[v * dim + 1], z = positions[v * dim + 2];
+        int a = u * Q_SIZE, b = v * Q_SIZE;
+        double w = quadrics[a + 10] + quadrics[b + 10];
+        if (w == 0) {
+            return 0;
+        }
+        double xx = quadrics[a] + quadrics[b];
+        double xy = quadrics[a + 1] + quadrics[b + 1];
+        double xz = quadrics[a + 2] + quadrics[b + 2];
+        double xd = quadrics[a + 3] + quadrics[b + 3];
+        double yy = quadrics[a + 4] + quadrics[b + 4];
+        double yz = quadrics[a + 5] + quadrics[b + 5];
+        double yd = quadrics[a + 6] + quadrics[b + 6];
+        double zz = quadrics[a + 7] + quadrics[b + 7];
+        double zd = quadrics[a + 8] + quadrics[b + 8];
+        double dd = quadrics[a + 9] + quadrics[b + 9];
+        double e = x * x * xx + y * y * yy + z * z * zz
+            + 2 * (x * y * xy + x * z * xz + y * z * yz)
+            + 2 * (x * xd + y * yd + z * zd)
+            + dd;
+        return Math.max(e / w, 0);
+    }
+
+    /**
+     * Check if moving u to v flips any triangle of u.
+     */
+    private static boolean flips(int[] tris,
+                                 int[] adjacency,
+                                 int[] adjOffsets,
+                                 float[] positions,
+                                 int dim,
+                                 int u,
+                                 int v) {
+        for (int j = adjOffsets[u]; j < adjOffsets[u + 1]; j++) {
+            int t = adjacency[j] * 3;
+            int a = tris[t], b = tris[t + 1], c = tris[t + 2];
+            if (a == v || b == v || c == v) {
+                // becomes degenerate and is removed
+                continue;
+            }
+            double[] n0 = normal(positions, dim, a, b, c);
+            double[] n1 = normal(positions, dim,
+                a == u ? v : a,
+                b == u ? v : b,
+                c == u ? v : c);
+            if (n0[0] * n1[0] + n0[1] * n1[1] + n0[2] * n1[2] <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the distance from vertex p to the triangle at t.
+     */
+    private static double distance(float[] positions, int dim, int p, int[] tris, int t) {
+        int ip = p * dim, ia = tris[t] * dim, ib = tris[t + 1] * dim, ic = tris[t + 2] * dim;
+        double px = positions[ip], py = positions[ip + 1], pz = positions[ip + 2];
+        double ax = positions[ia], ay = positions[ia + 1], az = positions[ia + 2];
+        double abx = positions[ib] - ax, aby = positions[ib + 1] - ay, abz = positions[ib + 2] - az;
+        double acx = positions[ic] - ax, acy = positions[ic + 1] - ay, acz = positions[ic + 2] - az;
+        double apx = px - ax, apy = py - ay, apz = pz - az;
+        // the closest point by the Voronoi regions of the triangle
+        double d1 = abx * apx + aby * apy + abz * apz;
+        double d2 = acx * apx + acy * apy + acz * apz;
+        double qx, qy, qz;
+        if (d1 <= 0 && d2 <= 0) {
+            qx = ax;
+            qy = ay;
+            qz = az;
+        } else {
+            double bpx = apx - abx, bpy = apy - aby, bpz = apz - abz;
+            double d3 = abx * bpx + aby * bpy + abz * bpz;
+            double d4 = acx * bpx + acy * bpy + acz * bpz;
+            double cpx = apx - acx, cpy = apy - acy, cpz = apz - acz;
+            double d5 = abx * cpx + aby * cpy + abz * cpz;
+            double d6 = acx * cpx + acy * cpy + acz * cpz;
+            double vc = d1 * d4 - d3 * d2;
+            double vb = d5 * d2 - d1 * d6;
+            double va = d3 * d6 - d5 * d4;
+            if (d3 >= 0 && d4 <= d3) {
+                qx = ax + abx;
+                qy = ay + aby;
+                qz = az + abz;
+            } else if (d6 >= 0 && d5 <= d6) {
+                qx = ax + acx;
+                qy = ay + acy;
+                qz = az + acz;
+            } else if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+                double v = d1 / (d1 - d3);
+                qx = ax + abx * v;
+                qy = ay + aby * v;
+                qz = az + abz * v;
+            } else if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+                double w = d2 / (d2 - d6);
+                qx = ax + acx * w;
+                qy = ay + acy * w;
+                qz = az + acz * w;
+            } else if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) {
+                double w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+                qx = ax + abx + (acx - abx) * w;
+                qy = ay + aby + (acy - aby) * w;
+                qz = az + abz + (acz - abz) * w;
+            } else {
+                double sum = va + vb + vc;
+                if (sum == 0) {
+                    // degenerate, use the nearest corner
+                    qx = ax;
+                    qy = ay;
+                    qz = az;
+                } else {
+                    double v = vb / sum, w = vc / sum;
+                    qx = ax + abx * v + acx * w;
+                    qy = ay + aby * v + acy * w;
+                    qz = az + abz * v + acz * w;
+                }
+            }
+        }
+        double dx = px - qx, dy = py - qy, dz = pz - qz;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static double[] normal(float[] positions, int dim, int a, int b, int c) {
+        int i0 = a * dim, i1 = b * dim, i2 = c * dim;
+        double ux = positions[i1] - positions[i0];
+        double uy = positions[i1 + 1] - positions[i0 + 1];
+        double uz = positions[i1 + 2] - positions[i0 + 2];
+        double vx = positions[i2] - positions[i0];
+        double vy = positions[i2 + 1] - positions[i0 + 1];
+        double vz = positions[i2 + 2] - positions[i0 + 2];
+        return new double[]{uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx};
+    }
+}
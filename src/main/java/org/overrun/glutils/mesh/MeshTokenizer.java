@@ -0,0 +1,334 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads a mesh file line by line as bytes and splits the lines into
+ * tokens without creating strings.
+ * <p>
+ * Numbers in the common decimal form are parsed in place; other forms
+ * fall back to {@link Float#parseFloat(String)} and
+ * {@link Integer#parseInt(String)}, so the results are the same.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+final class MeshTokenizer {
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22
+    };
+    private final InputStream in;
+    private final byte[] buffer = new byte[65536];
+    private int position;
+    private int limit;
+    private boolean skipLf;
+    /**
+     * the bytes of the current line
+     */
+    byte[] line = new byte[256];
+    /**
+     * the length of the current line
+     */
+    int length;
+    /**
+     * the number of the current line, from 1
+     */
+    int lineNumber;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    /**
+     * the token count of the current line
+     */
+    int count;
+
+    MeshTokenizer(InputStream in) {
+        this.in = in;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    /**
+     * Read the next line, ended by {@code \n}, {@code \r\n}, {@code \r} or
+     * the end of the input.
+     *
+     * @return {@code false} if no more lines
+     */
+    boolean nextLine() throws IOException {
+        length = 0;
+        boolean read = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                if (read) {
+                    ++lineNumber;
+                }
+                return read;
+            }
+            byte b = buffer[position++];
+            if (skipLf) {
+                skipLf = false;
+                if (b == '\n') {
+                    continue;
+                }
+            }
+            if (b == '\n' || b == '\r') {
+                skipLf = b == '\r';
+                ++lineNumber;
+                return true;
+            }
+            read = true;
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0b || b == '\f' || b == '\r';
+    }
+
+    /**
+     * Trim the line and split it by whitespace.
+     *
+     * @return {@code false} if the line is empty or a comment
+     */
+    boolean split() {
+        count = 0;
+        int i = 0;
+        int end = length;
+        while (i < end && (line[i] & 0xff) <= ' ') {
+            ++i;
+        }
+        while (end > i && (line[end - 1] & 0xff) <= ' ') {
+            --end;
+        }
+        if (i == end
+            || line[i] == '#'
+            || line[i] == '/' && i + 1 < end && line[i + 1] == '/') {
+            return false;
+        }
+        while (i < end) {
+            int start = i;
+            while (i < end && !isSpace(line[i])) {
+                ++i;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = i;
+            ++count;
+            while (i < end && isSpace(line[i])) {
+                ++i;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the token equals the ASCII string.
+     */
+    boolean tokenEquals(int token, String s) {
+        int start = starts[token];
+        if (ends[token] - start != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (line[start + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if any token from the offset may contain a macro, i.e. has a
+     * character that an identifier starts with.
+     */
+    boolean hasIdStart(int offset) {
+        for (int t = offset; t < count; t++) {
+            if (tokenHasIdStart(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the token may contain a macro.
+     */
+    boolean tokenHasIdStart(int token) {
+        for (int i = starts[token]; i < ends[token]; i++) {
+            byte b = line[i];
+            if (b >= 'A' && b <= 'Z' || b >= 'a' && b <= 'z' || b == '$' || b == '_') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * get the current line as a string
+     */
+    String lineString() {
+        return new String(line, 0, length, UTF_8);
+    }
+
+    /**
+     * get a token as a string
+     */
+    String tokenString(int token) {
+        return new String(line, starts[token], ends[token] - starts[token], UTF_8);
+    }
+
+    /**
+     * Parse a token as a float.
+     *
+     * @throws NumberFormatException if invalid
+     */
+    float parseFloat(int token) {
+        int i = starts[token];
+        int end = ends[token];
+        boolean negative = false;
+        if (i < end && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            ++i;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean anyDigit = false;
+        for (; i < end && line[i] >= '0' && line[i] <= '9'; i++) {
+            anyDigit = true;
+            if (mantissa != 0 || line[i] != '0') {
+                if (++digits > 18) {
+                    return Float.parseFloat(tokenString(token));
+                }
+                mantissa = mantissa * 10 + (line[i] - '0');
+            }
+        }
+        if (i < end && line[i] == '.') {
+            for (++i; i < end && line[i] >= '0' && line[i] <= '9'; i++) {
+                anyDigit = true;
+                if (mantissa != 0 || line[i] != '0') {
+                    if (++digits > 18) {
+                        return Float.parseFloat(tokenString(token));
+                    }
+                    mantissa = mantissa * 10 + (line[i] - '0');
+                }
+                --exponent;
+            }
+        }
+        if (anyDigit && i < end && (line[i] == 'e' || line[i] == 'E')) {
+            ++i;
+            boolean negExp = false;
+            if (i < end && (line[i] == '-' || line[i] == '+')) {
+                negExp = line[i] == '-';
+                ++i;
+            }
+            int exp = 0;
+            boolean expDigit = false;
+            for (; i < end && line[i] >= '0' && line[i] <= '9'; i++) {
+                expDigit = true;
+                if (exp < 10000) {
+                    exp = exp * 10 + (line[i] - '0');
+                }
+            }
+            if (!expDigit) {
+                return Float.parseFloat(tokenString(token));
+            }
+            exponent += negExp ? -exp : exp;
+        }
+        if (!anyDigit || i != end || mantissa >= 1L << 53
+            || exponent < -22 || exponent > 22) {
+            return Float.parseFloat(tokenString(token));
+        }
+        double d = exponent < 0
+            ? mantissa / POW10[-exponent]
+            : mantissa * POW10[exponent];
+        // the double is correctly rounded; rounding it again to float is
+        // only wrong if it is exactly halfway between two floats
+        if (d != 0) {
+            long bits = Double.doubleToRawLongBits(d);
+            if (d < Float.MIN_NORMAL || (bits & 0x1fffffffL) == 0x10000000L) {
+                return Float.parseFloat(tokenString(token));
+            }
+        }
+        float f = (float) d;
+        return negative ? -f : f;
+    }
+
+    /**
+     * Parse a token as an int.
+     *
+     * @throws NumberFormatException if invalid
+     */
+    int parseInt(int token) {
+        int i = starts[token];
+        int end = ends[token];
+        boolean negative = false;
+        if (i < end && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            ++i;
+        }
+        if (i == end || end - i > 10) {
+            return Integer.parseInt(tokenString(token));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            byte b = line[i];
+            if (b < '0' || b > '9') {
+                return Integer.parseInt(tokenString(token));
+            }
+            value = value * 10 + (b - '0');
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + tokenString(token) + "\"");
+        }
+        return (int) value;
+    }
+}
@@ -34,20 +34,7 @@ public class MeshVertexBuilder extends BaseMeshVertexBuilder {
 
     private void preRender() {
         if (isDirty) {
-            mesh.vertices(vertices.toFArray());
-            vertices.clear();
-            if (colored) {
-                mesh.colors(colors.toFArray());
-                colors.clear();
-            }
-            if (textured) {
-                mesh.texCoords(textureCoord.toFArray());
-                textureCoord.clear();
-            }
-            if (normalized) {
-                mesh.normalVert(normals.toFArray());
-                normals.clear();
-            }
+            build(mesh);
             isDirty = false;
         }
     }
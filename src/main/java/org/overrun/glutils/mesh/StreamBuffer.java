@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * An off-heap float buffer for geometry rebuilt every frame.
+ * <p>
+ * The buffer grows geometrically and is reused after {@link #clear()}, so
+ * filling it again allocates nothing once it is large enough.
+ * {@link #upload(int, int)} orphans the data store of the bound buffer
+ * before writing, so the driver does not wait for draws that still read
+ * the old data. Use one stream buffer per GL buffer object.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class StreamBuffer implements AutoCloseable {
+    private FloatBuffer buffer;
+    private long storeSize;
+
+    /**
+     * construct
+     *
+     * @param initialCapacity the initial capacity in floats
+     */
+    public StreamBuffer(int initialCapacity) {
+        buffer = memAllocFloat(Math.max(initialCapacity, 4));
+    }
+
+    /**
+     * construct
+     */
+    public StreamBuffer() {
+        this(1024);
+    }
+
+    private void ensure(int count) {
+        if (buffer.remaining() < count) {
+            buffer = memRealloc(buffer,
+                Math.max(buffer.capacity() * 2, buffer.position() + count));
+        }
+    }
+
+    /**
+     * Put 2 floats.
+     *
+     * @param x x
+     * @param y y
+     * @return this
+     */
+    public StreamBuffer put(float x, float y) {
+        ensure(2);
+        buffer.put(x).put(y);
+        return this;
+    }
+
+    /**
+     * Put 3 floats.
+     *
+     * @param x x
+     * @param y y
+     * @param z z
+     * @return this
+     */
+    public StreamBuffer put(float x, float y, float z) {
+        ensure(3);
+        buffer.put(x).put(y).put(z);
+        return this;
+    }
+
+    /**
+     * Put 4 floats.
+     *
+     * @param x x
+     * @param y y
+     * @param z z
+     * @param w w
+     * @return this
+     */
+    public StreamBuffer put(float x, float y, float z, float w) {
+        ensure(4);
+        buffer.put(x).put(y).put(z).put(w);
+        return this;
+    }
+
+    /**
+     * Remove all floats and keep the memory.
+     */
+    public void clear() {
+        buffer.clear();
+    }
+
+    /**
+     * get float count
+     *
+     * @return the count
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Copy the floats to a new array.
+     *
+     * @return the array
+     */
+    public float[] toArray() {
+        float[] arr = new float[buffer.position()];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = buffer.get(i);
+        }
+        return arr;
+    }
+
+    /**
+     * Upload the floats to the buffer bound to the target.
+     * <p>
+     * The data store only grows, geometrically; it is orphaned on each
+     * upload.
+     * </p>
+     *
+     * @param target target
+     * @param usage  usage, usually {@code GL_STREAM_DRAW} or {@code GL_DYNAMIC_DRAW}
+     */
+    public void upload(int target, int usage) {
+        int position = buffer.position();
+        long bytes = position * 4L;
+        if (bytes > storeSize) {
+            storeSize = Math.max(bytes, storeSize + (storeSize >> 1));
+        }
+        glBufferData(target, storeSize, usage);
+        buffer.flip();
+        glBufferSubData(target, 0, buffer);
+        buffer.limit(buffer.capacity()).position(position);
+    }
+
+    /**
+     * Free the memory.
+     */
+    @Override
+    public void close() {
+        memFree(buffer);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutils.mesh;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Merges identical vertices to build indexed meshes.
+ * <p>
+ * The vertices are hashed with an open-addressing table of primitive
+ * integers, so welding millions of vertices doesn't box anything.
+ * </p>
+ *
+ * @author squid233
+ * @since 1.6.0
+ */
+public class VertexWelder {
+    /**
+     * The welded mesh.
+     */
+    public static class Result {
+        /**
+         * the compact attributes, in the same order as the input
+         */
+        public final float[][] attributes;
+        /**
+         * the indices into the compact attributes
+         */
+        public final int[] indices;
+        /**
+         * the count of unique vertices
+         */
+        public final int vertexCount;
+
+        private Result(float[][] attributes,
+                       int[] indices,
+                       int vertexCount) {
+            this.attributes = attributes;
+            this.indices = indices;
+            this.vertexCount = vertexCount;
+        }
+    }
+
+    /**
+     * Weld the exactly identical vertices of a flat vertex stream.
+     *
+     * @param attributes  the vertex attributes; {@code null} are skipped
+     * @param dims        the dimensions of each attribute
+     * @param vertexCount the vertex count
+     * @return the welded mesh
+     */
+    public static Result weld(float[][] attributes,
+                              int[] dims,
+                              int vertexCount) {
+        return weld(attributes, dims, vertexCount, null, 0);
+    }
+
+    /**
+     * Weld the vertices.
+     * <p>
+     * With a positive epsilon, each component is snapped to a grid of that
+     * size, and the vertices in the same cell are merged into the first one.
+     * Otherwise the components must be equal, except that {@code -0.0} equals
+     * {@code 0.0}. In both modes all NaNs are equal.
+     * </p>
+     *
+     * @param attributes  the vertex attributes; {@code null} are skipped
+     * @param dims        the dimensions of each attribute
+     * @param vertexCount the vertex count
+     * @param indices     the indices into the vertices, or {@code null} for a
+     *                    flat vertex stream
+     * @param epsilon     the tolerance, or 0 for exact matching
+     * @return the welded mesh
+     * @throws IllegalArgumentException if the epsilon is NaN or too small
+     *                                  to invert
+     */
+    public static Result weld(float[][] attributes,
+                              int[] dims,
+                              int vertexCount,
+                              @Nullable int[] indices,
+                              float epsilon) {
+        for (int a = 0; a < attributes.length; a++) {
+            if (attributes[a] != null
+                && attributes[a].length < vertexCount * dims[a]) {
+                throw new IllegalArgumentException("Attribute " + a +
+                    " has less than " + vertexCount + " vertices");
+            }
+        }
+        if (Float.isNaN(epsilon) || epsilon > 0 && Float.isInfinite(1.0f / epsilon)) {
+            throw new IllegalArgumentException("Invalid epsilon: " + epsilon);
+        }
+        float scale = epsilon > 0 ? 1.0f / epsilon : 0;
+        int capacity = Integer.highestOneBit(Math.max(vertexCount, 1) * 2 - 1) << 1;
+        int mask = capacity - 1;
+        // the first vertex of each unique vertex, or -1
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        int[] remap = new int[vertexCount];
+        int[] unique = new int[vertexCount];
+        int count = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int slot = hash(attributes, dims, v, scale) & mask;
+            while (true) {
+                int u = table[slot];
+                if (u < 0) {
+                    table[slot] = v;
+                    remap[v] = count;
+                    unique[count++] = v;
+                    break;
+                }
+                if (equals(attributes, dims, u, v, scale)) {
+                    remap[v] = remap[u];
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        float[][] result = new float[attributes.length][];
+        for (int a = 0; a < attributes.length; a++) {
+            float[] src = attributes[a];
+            if (src == null) {
+                continue;
+            }
+            int dim = dims[a];
+            float[] dst = new float[count * dim];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(src, unique[i] * dim, dst, i * dim, dim);
+            }
+            result[a] = dst;
+        }
+        int[] newIndices;
+        if (indices == null) {
+            newIndices = remap;
+        } else {
+            newIndices = new int[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                newIndices[i] = remap[indices[i]];
+            }
+        }
+        return new Result(result, newIndices, count);
+    }
+
+    private static long key(float f, float scale) {
+        if (scale > 0) {
+            double cell = Math.floor((double) f * scale);
+            // NaN fails the compare; beyond 2^62 cells the floats are much
+            // farther apart than a cell, so they are compared exactly
+            if (Math.abs(cell) < 0x1p62) {
+                return (long) cell;
+            }
+        }
+        // -0.0 + 0.0 is 0.0, and NaNs are collapsed by floatToIntBits
+        int bits = Float.floatToIntBits(f + 0.0f);
+        // keep the exact keys out of the range of the cells
+        return scale > 0 ? Long.MIN_VALUE + (bits & 0xffffffffL) : bits;
+    }
+
+    private static int hash(float[][] attributes,
+                            int[] dims,
+                            int v,
+                            float scale) {
+        int h = 0;
+        for (int a = 0; a < attributes.length; a++) {
+            float[] src = attributes[a];
+            if (src == null) {
+                continue;
+            }
+            int dim = dims[a];
+            for (int i = v * dim, end = i + dim; i < end; i++) {
+                long k = key(src[i], scale);
+                h = (h ^ (int) (k ^ k >>> 32)) * 0x9e3779b1;
+            }
+        }
+        // murmur3 finalizer
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static boolean equals(float[][] attributes,
+                                  int[] dims,
+                                  int u,
+                                  int v,
+                                  float scale) {
+        for (int a = 0; a < attributes.length; a++) {
+            float[] src = attributes[a];
+            if (src == null) {
+                continue;
+            }
+            int dim = dims[a];
+            for (int i = u * dim, j = v * dim, end = i + dim; i < end; i++, j++) {
+                if (key(src[i], scale) != key(src[j], scale)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
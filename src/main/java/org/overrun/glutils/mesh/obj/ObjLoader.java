@@ -31,11 +31,14 @@ import org.lwjgl.PointerBuffer;
 import org.lwjgl.assimp.*;
 import org.overrun.commonutils.FloatArray;
 import org.overrun.commonutils.IntArray;
+import org.overrun.glutils.AWTImage;
 import org.overrun.glutils.Textures;
 import org.overrun.glutils.light.Material;
 import org.overrun.glutils.mesh.Mesh;
 import org.overrun.glutils.mesh.Mesh3;
+import org.overrun.glutils.mesh.MeshOptimizer;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -48,6 +51,7 @@ import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -87,13 +91,81 @@ public class ObjLoader {
                     int meshIndex);
     }
 
+    /**
+     * A decoded texture waiting for upload.
+     */
+    private static final class TextureData {
+        private final String name;
+        private final int width;
+        private final int height;
+        private final int[] pixels;
+        private Material material;
+
+        private TextureData(String name,
+                            BufferedImage img) {
+            this.name = name;
+            width = img.getWidth();
+            height = img.getHeight();
+            pixels = AWTImage.getRGB(img);
+        }
+
+        private void upload() {
+            material.setTexture(Textures.load(name,
+                width,
+                height,
+                pixels,
+                GL_NEAREST));
+        }
+    }
+
+    /**
+     * A processed mesh waiting for upload.
+     */
+    private static final class MeshData {
+        private final float[][] attributes;
+        private final int[] indices;
+        private final Material material;
+
+        private MeshData(float[][] attributes,
+                         int[] indices,
+                         Material material) {
+            this.attributes = attributes;
+            this.indices = indices;
+            this.material = material;
+        }
+
+        private Mesh3 upload(@Nullable PreReturn preReturn,
+                             int index) {
+            Mesh3 mesh = new Mesh3();
+            float[] v = attributes[0];
+            if (preReturn != null) {
+                preReturn.accept(mesh, v, index);
+            }
+            if (attributes[1] != null) {
+                mesh.colors(attributes[1]);
+            }
+            return mesh.vertices(v)
+                .texCoords(attributes[2])
+                .normalVert(attributes[3])
+                .indices(indices)
+                .material(material);
+        }
+    }
+
     private static AIScene load(ClassLoader cl,
                                 String filename,
                                 int flags) {
         String fn = filename.replaceAll("\\\\", "/");
         String parentPath = fn.substring(0, fn.lastIndexOf('/') + 1);
-        File f = new File(TMP + "/" + parentPath);
-        f.mkdirs();
+        // each load has its own directory, so loads can run in parallel
+        File tmp;
+        try {
+            TMP.mkdirs();
+            tmp = Files.createTempDirectory(TMP.toPath(), "load").toFile();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        new File(tmp, parentPath).mkdirs();
         try {
             Enumeration<URL> resources = cl.getResources(parentPath);
             while (resources.hasMoreElements()) {
@@ -108,7 +180,7 @@ public class ObjLoader {
                         JarEntry entry = entries.nextElement();
                         String name = entry.getName();
                         if (!entry.isDirectory() && name.startsWith(parentPath)) {
-                            copyToFS(cl, name);
+                            copyToFS(cl, tmp, name);
                         }
                     }
                 } else if (protocol.equals("file")) {
@@ -116,30 +188,37 @@ public class ObjLoader {
                     String[] files = new File(resource.getPath()).list();
                     if (files != null) {
                         for (String file : files) {
-                            copyToFS(cl, parentPath + "/" + file);
+                            copyToFS(cl, tmp, parentPath + "/" + file);
                         }
                     }
                 }
             }
+            AIScene scene = aiImportFile(tmp + "/" + fn, flags);
+            if (scene == null) {
+                // the error string is global, so it may come from
+                // another load running in parallel
+                throw new RuntimeException(
+                    "Error loading model " + filename +
+                        " (last assimp error: " +
+                        aiGetErrorString() + ")");
+            }
+            return scene;
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            deleteTmpFiles(tmp);
+            // fails while other loads are running
+            TMP.delete();
         }
-        AIScene scene = aiImportFile(TMP + "/" + fn, flags);
-        if (scene == null) {
-            throw new RuntimeException(
-                "Error loading model: " +
-                    aiGetErrorString());
-        }
-        deleteTmpFiles(TMP);
-        return scene;
     }
 
     private static void copyToFS(ClassLoader cl,
+                                 File tmp,
                                  String p)
         throws IOException {
         try (InputStream in = cl.getResourceAsStream(p)) {
             Files.copy(requireNonNull(in),
-                Paths.get(TMP + "/" + p),
+                Paths.get(tmp + "/" + p),
                 StandardCopyOption.REPLACE_EXISTING);
         }
     }
@@ -156,21 +235,29 @@ public class ObjLoader {
 
     private static List<Material> createMaterials(ClassLoader cl,
                                                   AIScene scene,
-                                                  String filename) {
+                                                  String filename,
+                                                  @Nullable List<TextureData> textures) {
         int numMaterials = scene.mNumMaterials();
         PointerBuffer aiMaterials = scene.mMaterials();
         List<Material> materials = new ArrayList<>();
         for (int i = 0; i < numMaterials; i++) {
             AIMaterial aiMaterial = AIMaterial.create(requireNonNull(aiMaterials).get(i));
-            processMaterial(cl, aiMaterial, materials, filename);
+            processMaterial(cl, aiMaterial, materials, filename, textures);
         }
         return materials;
     }
 
+    /**
+     * Process a material.
+     *
+     * @param textures If not null, the texture is only decoded and added to
+     *                 this list, to be uploaded on the GL thread later.
+     */
     private static void processMaterial(ClassLoader cl,
                                         AIMaterial aiMaterial,
                                         List<Material> materials,
-                                        String filename) {
+                                        String filename,
+                                        @Nullable List<TextureData> textures) {
         AIColor4D color = AIColor4D.create();
         AIString path = AIString.calloc();
         Assimp.aiGetMaterialTexture(aiMaterial,
@@ -185,8 +272,15 @@ public class ObjLoader {
             null);
         String texPath = path.dataString();
         int texture = 0;
+        TextureData textureData = null;
         if (!texPath.isEmpty()) {
-            texture = Textures.loadAWT(cl, filename + "/../" + texPath, GL_NEAREST);
+            String name = filename + "/../" + texPath;
+            if (textures == null) {
+                texture = Textures.loadAWT(cl, name, GL_NEAREST);
+            } else {
+                textureData = new TextureData(name, AWTImage.load(cl, name));
+                textures.add(textureData);
+            }
         }
         path.close();
 
@@ -208,7 +302,11 @@ public class ObjLoader {
             specular = new Vector4f(color.r(), color.g(), color.b(), color.a());
         }
 
-        materials.add(new Material(ambient, diffuse, specular, texture, 1.0f));
+        Material material = new Material(ambient, diffuse, specular, texture, 1.0f);
+        if (textureData != null) {
+            textureData.material = material;
+        }
+        materials.add(material);
     }
 
     private static void processVertices(AIMesh mesh,
@@ -266,7 +364,8 @@ public class ObjLoader {
     }
 
     private static Mesh processMesh(AIMesh aiMesh,
-                                    List<Material> materials) {
+                                    List<Material> materials,
+                                    boolean optimize) {
         FloatArray vertices = new FloatArray();
         FloatArray textures = new FloatArray();
         FloatArray normals = new FloatArray();
@@ -285,18 +384,29 @@ public class ObjLoader {
             material = new Material();
         }
 
+        float[][] attributes = {
+            vertices.toFArray(),
+            textures.toFArray(),
+            normals.toFArray()
+        };
+        int[] ind = indices.toIArray();
+        if (optimize) {
+            ind = MeshOptimizer.optimize(ind,
+                aiMesh.mNumVertices(),
+                attributes,
+                new int[]{3, 2, 3});
+        }
         return new Mesh()
-            .vertices(vertices.toFArray())
-            .texCoords(textures.toFArray())
-            .normalVert(normals.toFArray())
-            .indices(indices.toIArray())
+            .vertices(attributes[0])
+            .texCoords(attributes[1])
+            .normalVert(attributes[2])
+            .indices(ind)
             .material(material);
     }
 
-    private static Mesh3 processMesh(AIMesh aiMesh,
-                                     List<Material> materials,
-                                     @Nullable PreReturn preReturn,
-                                     int index) {
+    private static MeshData processMesh3(AIMesh aiMesh,
+                                         List<Material> materials,
+                                         boolean optimize) {
         FloatArray vertices = new FloatArray();
         FloatArray colors = new FloatArray();
         FloatArray textures = new FloatArray();
@@ -317,19 +427,20 @@ public class ObjLoader {
             material = new Material();
         }
 
-        Mesh3 mesh = new Mesh3();
-        float[] v = vertices.toFArray();
-        if (preReturn != null) {
-            preReturn.accept(mesh, v, index);
-        }
-        if (!colors.isEmpty()) {
-            mesh.colors(colors.toFArray());
+        float[][] attributes = {
+            vertices.toFArray(),
+            colors.isEmpty() ? null : colors.toFArray(),
+            textures.toFArray(),
+            normals.toFArray()
+        };
+        int[] ind = indices.toIArray();
+        if (optimize) {
+            ind = MeshOptimizer.optimize(ind,
+                aiMesh.mNumVertices(),
+                attributes,
+                new int[]{3, 4, 2, 3});
         }
-        return mesh.vertices(v)
-            .texCoords(textures.toFArray())
-            .normalVert(normals.toFArray())
-            .indices(indices.toIArray())
-            .material(material);
+        return new MeshData(attributes, ind, material);
     }
 
     /**
@@ -355,14 +466,32 @@ public class ObjLoader {
     public static ObjModel2 load2(ClassLoader cl,
                                   String filename,
                                   int flags) {
+        return load2(cl, filename, flags, false);
+    }
+
+    /**
+     * Load object file.
+     *
+     * @param cl       Class loader
+     * @param filename Object filename in classpath (in relative path).
+     * @param flags    Assimp flags. Must triangulate if optimizing.
+     * @param optimize Reorder the triangles and vertices with
+     *                 {@link MeshOptimizer}.
+     * @return Meshes.
+     * @since 1.6.0
+     */
+    public static ObjModel2 load2(ClassLoader cl,
+                                  String filename,
+                                  int flags,
+                                  boolean optimize) {
         AIScene scene = load(cl, filename, flags);
-        List<Material> materials = createMaterials(cl, scene, filename);
+        List<Material> materials = createMaterials(cl, scene, filename, null);
         int numMeshes = scene.mNumMeshes();
         PointerBuffer aiMeshes = scene.mMeshes();
         Mesh[] meshes = new Mesh[numMeshes];
         for (int i = 0; i < numMeshes; i++) {
             AIMesh aiMesh = AIMesh.create(requireNonNull(aiMeshes).get(i));
-            Mesh mesh = processMesh(aiMesh, materials);
+            Mesh mesh = processMesh(aiMesh, materials, optimize);
             meshes[i] = mesh;
         }
         aiReleaseImport(scene);
@@ -396,18 +525,84 @@ public class ObjLoader {
                                   String filename,
                                   int flags,
                                   @Nullable PreReturn preReturn) {
+        return load3(cl, filename, flags, preReturn, false);
+    }
+
+    /**
+     * Load object file.
+     *
+     * @param cl        Class loader
+     * @param filename  Object filename in classpath (in relative path).
+     * @param flags     Assimp flags. Must triangulate if optimizing.
+     * @param preReturn Set attribute index before return.
+     * @param optimize  Reorder the triangles and vertices with
+     *                  {@link MeshOptimizer}.
+     * @return Meshes v3.
+     * @since 1.6.0
+     */
+    public static ObjModel3 load3(ClassLoader cl,
+                                  String filename,
+                                  int flags,
+                                  @Nullable PreReturn preReturn,
+                                  boolean optimize) {
+        return parse3(cl, filename, flags, preReturn, optimize, null).get();
+    }
+
+    /**
+     * Parse object file without touching GL. The textures are decoded but
+     * not uploaded. The returned supplier creates the textures and meshes,
+     * and must be called on the thread that owns the GL context.
+     *
+     * @param cl        Class loader
+     * @param filename  Object filename in classpath (in relative path).
+     * @param flags     Assimp flags. Must triangulate if optimizing.
+     * @param preReturn Set attribute index before return.
+     *                  Called in the upload step.
+     * @param optimize  Reorder the triangles and vertices with
+     *                  {@link MeshOptimizer}.
+     * @return The upload step.
+     * @see org.overrun.glutils.mesh.BatchLoader
+     * @since 1.6.0
+     */
+    public static Supplier<ObjModel3> parse3(ClassLoader cl,
+                                             String filename,
+                                             int flags,
+                                             @Nullable PreReturn preReturn,
+                                             boolean optimize) {
+        return parse3(cl, filename, flags, preReturn, optimize, new ArrayList<>());
+    }
+
+    private static Supplier<ObjModel3> parse3(ClassLoader cl,
+                                              String filename,
+                                              int flags,
+                                              @Nullable PreReturn preReturn,
+                                              boolean optimize,
+                                              @Nullable List<TextureData> textures) {
         AIScene scene = load(cl, filename, flags);
-        List<Material> materials = createMaterials(cl, scene, filename);
-        int numMeshes = scene.mNumMeshes();
-        PointerBuffer aiMeshes = scene.mMeshes();
-        Mesh3[] meshes = new Mesh3[numMeshes];
-        for (int i = 0; i < numMeshes; i++) {
-            AIMesh aiMesh = AIMesh.create(requireNonNull(aiMeshes).get(i));
-            Mesh3 mesh = processMesh(aiMesh, materials, preReturn, i)
-                .unbindVao();
-            meshes[i] = mesh;
+        MeshData[] data;
+        try {
+            List<Material> materials = createMaterials(cl, scene, filename, textures);
+            int numMeshes = scene.mNumMeshes();
+            PointerBuffer aiMeshes = scene.mMeshes();
+            data = new MeshData[numMeshes];
+            for (int i = 0; i < numMeshes; i++) {
+                AIMesh aiMesh = AIMesh.create(requireNonNull(aiMeshes).get(i));
+                data[i] = processMesh3(aiMesh, materials, optimize);
+            }
+        } finally {
+            aiReleaseImport(scene);
         }
-        aiReleaseImport(scene);
-        return new ObjModel3(meshes);
+        return () -> {
+            if (textures != null) {
+                for (TextureData texture : textures) {
+                    texture.upload();
+                }
+            }
+            Mesh3[] meshes = new Mesh3[data.length];
+            for (int i = 0; i < data.length; i++) {
+                meshes[i] = data[i].upload(preReturn, i).unbindVao();
+            }
+            return new ObjModel3(meshes);
+        };
     }
 }
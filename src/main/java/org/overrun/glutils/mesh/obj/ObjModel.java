@@ -25,11 +25,18 @@
 
 package org.overrun.glutils.mesh.obj;
 
+import org.overrun.glutils.BufferArena;
 import org.overrun.glutils.Drawable;
+import org.overrun.glutils.IndirectBatch;
+import org.overrun.glutils.Textures;
+import org.overrun.glutils.math.Frustum;
+import org.overrun.glutils.mesh.BaseMesh;
 import org.overrun.glutils.mesh.IMesh;
 
 import java.util.function.Consumer;
 
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+
 /**
  * @author squid233
  * @since 1.2.0
@@ -67,6 +74,16 @@ public class ObjModel<T extends IMesh> implements Drawable, AutoCloseable {
         this.preRender = preRender;
     }
 
+    /**
+     * get pre render
+     *
+     * @return pre render
+     * @since 1.6.0
+     */
+    public PreRender<T> getPreRender() {
+        return preRender;
+    }
+
     /**
      * get meshes
      *
@@ -105,6 +122,160 @@ public class ObjModel<T extends IMesh> implements Drawable, AutoCloseable {
         }
     }
 
+    /**
+     * Render the meshes that may be inside the frustum.
+     *
+     * @param frustum the frustum in the model space, i.e. from the
+     *                projection-view-model matrix
+     * @since 1.6.0
+     */
+    public void render(Frustum frustum) {
+        for (T mesh : meshes) {
+            if (!mesh.inFrustum(frustum)) {
+                continue;
+            }
+            if (preRender != null) {
+                preRender.accept(mesh);
+            }
+            mesh.render();
+        }
+    }
+
+    /**
+     * Generate the levels of detail of all meshes.
+     *
+     * @param levels the level count, including the full mesh
+     * @param ratio  the triangle ratio between two levels
+     * @see BaseMesh#generateLods(int, float)
+     * @since 1.6.0
+     */
+    public void generateLods(int levels, float ratio) {
+        for (T mesh : meshes) {
+            if (mesh instanceof BaseMesh) {
+                ((BaseMesh<?>) mesh).generateLods(levels, ratio);
+            }
+        }
+    }
+
+    /**
+     * Render with the coarsest levels of detail whose error on screen is
+     * within the threshold.
+     *
+     * @param distance      the distance from the camera
+     * @param projScale     pixels per unit at distance 1, see {@link BaseMesh#projScale(float, float)}
+     * @param maxPixelError the max error in pixels
+     * @since 1.6.0
+     */
+    public void render(float distance, float projScale, float maxPixelError) {
+        for (T mesh : meshes) {
+            if (mesh instanceof BaseMesh) {
+                ((BaseMesh<?>) mesh).selectLod(distance, projScale, maxPixelError);
+            }
+            if (preRender != null) {
+                preRender.accept(mesh);
+            }
+            mesh.render();
+        }
+    }
+
+    /**
+     * Add the meshes to an arena for {@link #render(IndirectBatch, BufferArena.Slice[])}.
+     * Meshes that are not {@link BaseMesh} are skipped and their slices are
+     * {@code null}.
+     *
+     * @param arena the arena
+     * @return the slices, in the order of the meshes
+     * @since 1.6.0
+     */
+    public BufferArena.Slice[] allocate(BufferArena arena) {
+        BufferArena.Slice[] slices = new BufferArena.Slice[meshes.length];
+        for (int i = 0; i < meshes.length; i++) {
+            if (meshes[i] instanceof BaseMesh) {
+                slices[i] = arena.allocate((BaseMesh<?>) meshes[i]);
+            }
+        }
+        return slices;
+    }
+
+    /**
+     * Render the slices of the meshes with one multi-draw per run of meshes
+     * with the same texture. The pre render is not called, because the
+     * uniforms cannot change inside a multi-draw.
+     *
+     * @param batch     the batch of the arena holding the slices
+     * @param slices    the slices; {@code null} slices are skipped, e.g.
+     *                  the culled ones
+     * @param primitive the primitive
+     * @since 1.6.0
+     */
+    public void render(IndirectBatch batch,
+                       BufferArena.Slice[] slices,
+                       int primitive) {
+        render(batch, slices, null, primitive);
+    }
+
+    /**
+     * Render the slices of the meshes that may be inside the frustum.
+     *
+     * @param batch     the batch of the arena holding the slices
+     * @param slices    the slices
+     * @param frustum   the frustum in the model space, or {@code null}
+     * @param primitive the primitive
+     * @see #render(IndirectBatch, BufferArena.Slice[], int)
+     * @since 1.6.0
+     */
+    public void render(IndirectBatch batch,
+                       BufferArena.Slice[] slices,
+                       Frustum frustum,
+                       int primitive) {
+        int texture = 0;
+        batch.clear();
+        for (int i = 0; i < meshes.length; i++) {
+            if (slices[i] == null
+                || frustum != null && !meshes[i].inFrustum(frustum)) {
+                continue;
+            }
+            int t = 0;
+            if (meshes[i] instanceof BaseMesh
+                && ((BaseMesh<?>) meshes[i]).getMaterial() != null) {
+                t = ((BaseMesh<?>) meshes[i]).getTexture();
+            }
+            if (t != texture && batch.getCount() > 0) {
+                flush(batch, texture, primitive);
+            }
+            texture = t;
+            batch.add(slices[i]);
+        }
+        flush(batch, texture, primitive);
+    }
+
+    /**
+     * Render the slices of the meshes in triangles.
+     *
+     * @param batch  the batch of the arena holding the slices
+     * @param slices the slices
+     * @see #render(IndirectBatch, BufferArena.Slice[], int)
+     * @since 1.6.0
+     */
+    public void render(IndirectBatch batch, BufferArena.Slice[] slices) {
+        render(batch, slices, GL_TRIANGLES);
+    }
+
+    private static void flush(IndirectBatch batch, int texture, int primitive) {
+        if (batch.getCount() == 0) {
+            return;
+        }
+        if (texture != 0) {
+            Textures.active(0);
+            Textures.bind2D(texture);
+        }
+        batch.render(primitive);
+        batch.clear();
+        if (texture != 0) {
+            Textures.unbind2D();
+        }
+    }
+
     @Override
     public void close() {
         for (T mesh : meshes) {
@@ -25,6 +25,7 @@
 
 package org.overrun.glutils.mesh.obj;
 
+import org.overrun.glutils.InstanceBuffer;
 import org.overrun.glutils.mesh.Mesh3;
 
 /**
@@ -40,4 +41,20 @@ public class ObjModel3 extends ObjModel<Mesh3> {
     public ObjModel3(Mesh3[] meshes) {
         super(meshes);
     }
+
+    /**
+     * Render the meshes once for each instance.
+     *
+     * @param instances The instances.
+     * @since 1.6.0
+     */
+    public void renderInstanced(InstanceBuffer instances) {
+        PreRender<Mesh3> preRender = getPreRender();
+        for (Mesh3 mesh : getMeshes()) {
+            if (preRender != null) {
+                preRender.accept(mesh);
+            }
+            mesh.renderInstanced(instances);
+        }
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+import org.overrun.glutils.math.Frustum;
+
+import java.util.Random;
+
+/**
+ * Compare {@link Frustum#testBounds} with a brute-force 8-corner clip test
+ * without GL. A box is culled by the brute force only if all 8 corners are
+ * outside one clip plane; any box culled by the frustum but not by the brute
+ * force is a false cull and fails the check.
+ *
+ * @author squid233
+ */
+public class FrustumTest {
+    private static final int BOXES = 1_000_000;
+    /**
+     * the tolerance at the planes, relative to w
+     */
+    private static final float EPSILON = 1e-4f;
+
+    private static boolean outside(Vector4f[] corners, int axis, int sign) {
+        for (Vector4f c : corners) {
+            float d = sign * c.get(axis);
+            if (d <= c.w - EPSILON * (Math.abs(c.w) + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean bruteCulled(Matrix4f pv, Vector4f[] corners,
+                                       float minX, float minY, float minZ,
+                                       float maxX, float maxY, float maxZ) {
+        for (int i = 0; i < 8; i++) {
+            corners[i].set((i & 1) == 0 ? minX : maxX,
+                (i & 2) == 0 ? minY : maxY,
+                (i & 4) == 0 ? minZ : maxZ,
+                1).mul(pv);
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            if (outside(corners, axis, 1) || outside(corners, axis, -1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void run(String name, Matrix4f pv, Random random) {
+        Frustum frustum = new Frustum(pv);
+        Vector4f[] corners = new Vector4f[8];
+        for (int i = 0; i < 8; i++) {
+            corners[i] = new Vector4f();
+        }
+        int culled = 0, missed = 0;
+        for (int i = 0; i < BOXES; i++) {
+            float minX = random.nextFloat() * 200 - 100;
+            float minY = random.nextFloat() * 200 - 100;
+            float minZ = random.nextFloat() * 200 - 100;
+            float maxX = minX + random.nextFloat() * random.nextFloat() * 20;
+            float maxY = minY + random.nextFloat() * random.nextFloat() * 20;
+            float maxZ = minZ + random.nextFloat() * random.nextFloat() * 20;
+            double hx = (maxX - minX) * 0.5, hy = (maxY - minY) * 0.5, hz = (maxZ - minZ) * 0.5;
+            float radius = Math.nextUp((float) Math.sqrt(hx * hx + hy * hy + hz * hz));
+            boolean visible = frustum.testBounds(minX, minY, minZ, maxX, maxY, maxZ,
+                (float) (minX + hx), (float) (minY + hy), (float) (minZ + hz), radius);
+            boolean brute = bruteCulled(pv, corners, minX, minY, minZ, maxX, maxY, maxZ);
+            if (!visible) {
+                if (!brute) {
+                    throw new AssertionError(name + ": false cull of box " + i + " ["
+                        + minX + ", " + minY + ", " + minZ + "] - ["
+                        + maxX + ", " + maxY + ", " + maxZ + "]");
+                }
+                ++culled;
+            } else if (brute) {
+                ++missed;
+            }
+        }
+        System.out.printf("%s: culled %d of %d, %d boxes culled by the brute force but kept%n",
+            name, culled, BOXES, missed);
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        run("perspective", new Matrix4f()
+            .perspective((float) Math.toRadians(70), 16f / 9, 0.1f, 100)
+            .lookAt(3, 2, 5, 0, 0, 0, 0, 1, 0), random);
+        run("wide perspective", new Matrix4f()
+            .perspective((float) Math.toRadians(120), 1, 0.01f, 500)
+            .lookAt(-40, 10, 0, 30, -5, 20, 0, 1, 0), random);
+        run("orthographic", new Matrix4f()
+            .ortho(-30, 30, -20, 20, -50, 50)
+            .rotateXYZ(0.3f, 0.7f, 0.1f), random);
+        System.out.println("FrustumTest passed");
+    }
+}
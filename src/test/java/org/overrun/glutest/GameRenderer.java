@@ -83,6 +83,8 @@ public class GameRenderer implements AutoCloseable {
     public Mesh3 crossing;
     public Mesh3 text;
     public Mesh3 textBg;
+    public final Matrix4f model = new Matrix4f();
+    public InstanceBuffer instances;
 
     public void init() {
         program = new GLProgram();
@@ -105,6 +107,7 @@ public class GameRenderer implements AutoCloseable {
             "material.textured",
             "material.reflectance",
             m.getMaterial()));
+        instances = new InstanceBuffer(InstanceBuffer.MODEL_INDEX, -1);
         crossing = MeshLoader.load3(cl,
                 "crossing.mesh",
                 m -> m.vertIdx(0).colorIdx(1).texIdx(2))
@@ -183,13 +186,16 @@ public class GameRenderer implements AutoCloseable {
             currDirLight);
 
         program.setUniform("texSampler", 0);
+        program.setUniformMat4("modelv", modelv);
+        instances.clear();
         for (int x = 0; x < 3; x++) {
             for (int y = 0; y < 3; y++) {
                 for (int z = 0; z < 3; z++) {
-                    renderMesh(player, x, y, z);
+                    addInstance(player, x, y, z);
                 }
             }
         }
+        cube.renderInstanced(instances);
         program.unbind();
         disableDepthTest();
         disableCullFace();
@@ -199,20 +205,17 @@ public class GameRenderer implements AutoCloseable {
         modelv.popMatrix();
     }
 
-    private void renderMesh(Player player,
-                            float x,
-                            float y,
-                            float z) {
+    private void addInstance(Player player,
+                             float x,
+                             float y,
+                             float z) {
         float cameraX = player.x;
         float cameraY = player.y;
         float cameraZ = player.z;
         float fx = x == 0 ? -cameraX : -cameraX + (x * 0.9375f);
         float fy = y == 0 ? -cameraY : -cameraY + (y * 0.9375f);
         float fz = z == 0 ? -cameraZ : -cameraZ + (z * 0.9375f);
-        modelv.pushMatrix();
-        program.setUniformMat4("modelv", modelv.translate(fx, fy, fz));
-        cube.render();
-        modelv.popMatrix();
+        instances.add(model.translation(fx, fy, fz));
     }
 
     public void renderGui(Player player,
@@ -289,6 +292,9 @@ public class GameRenderer implements AutoCloseable {
         if (text != null) {
             text.close();
         }
+        if (instances != null) {
+            instances.free();
+        }
         if (program != null) {
             program.close();
         }
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.overrun.glutils.math.HalfFloat;
+
+/**
+ * Check the rounding of {@link HalfFloat} without GL.
+ *
+ * @author squid233
+ */
+public class HalfFloatTest {
+    private static void check(boolean b, String msg) {
+        if (!b) {
+            throw new AssertionError(msg);
+        }
+    }
+
+    private static void checkHalf(float f, int expected) {
+        int half = HalfFloat.toHalf(f) & 0xffff;
+        check(half == expected, "toHalf(" + f + ") = 0x" + Integer.toHexString(half)
+            + ", expected 0x" + Integer.toHexString(expected));
+    }
+
+    private static boolean isNaN(short half) {
+        return (half & 0x7c00) == 0x7c00 && (half & 0x03ff) != 0;
+    }
+
+    public static void main(String[] args) {
+        // every finite half, the ties between it and the next half, and the floats around the ties
+        for (int h = 0; h < 0x7c00; h++) {
+            float a = HalfFloat.toFloat((short) h);
+            float b = h == 0x7bff ? 65536 : HalfFloat.toFloat((short) (h + 1));
+            float tie = (a + b) * 0.5f;
+            int even = (h & 1) == 0 ? h : h + 1;
+            for (int sign = 0; sign <= 0x8000; sign += 0x8000) {
+                float s = sign == 0 ? 1 : -1;
+                checkHalf(s * a, sign | h);
+                checkHalf(s * tie, sign | even);
+                checkHalf(s * Math.nextDown(tie), sign | h);
+                checkHalf(s * Math.nextUp(tie), sign | h + 1);
+            }
+        }
+
+        checkHalf(0x1p-25f, 0);
+        checkHalf(Math.nextUp(0x1p-25f), 1);
+        checkHalf(0x1p-26f, 0);
+        checkHalf(-0.0f, 0x8000);
+        checkHalf(65519.996f, 0x7bff);
+        checkHalf(65520, 0x7c00);
+        checkHalf(1e10f, 0x7c00);
+        checkHalf(Float.MAX_VALUE, 0x7c00);
+        checkHalf(Float.POSITIVE_INFINITY, 0x7c00);
+        checkHalf(Float.NEGATIVE_INFINITY, 0xfc00);
+        check(isNaN(HalfFloat.toHalf(Float.NaN)), "NaN");
+        check(isNaN(HalfFloat.toHalf(Float.intBitsToFloat(0x7fffffff))), "NaN with a full payload");
+        check(isNaN(HalfFloat.toHalf(Float.intBitsToFloat(0xff800001))), "negative NaN with a low payload");
+        check(Float.isNaN(HalfFloat.toFloat(HalfFloat.toHalf(Float.NaN))), "NaN round trip");
+        System.out.println("HalfFloatTest passed");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.overrun.glutils.mesh.Indices;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Check the index narrowing of {@link Indices} without GL.
+ *
+ * @author squid233
+ */
+public class IndicesTest {
+    private static void check(boolean b, String msg) {
+        if (!b) {
+            throw new AssertionError(msg);
+        }
+    }
+
+    private static ByteBuffer narrow(int[] indices, int type) {
+        ByteBuffer buffer = ByteBuffer.allocate(indices.length * Indices.bytes(type))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        Indices.narrow(indices, type, buffer);
+        check(!buffer.hasRemaining(), "narrowed size of type " + type);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static void main(String[] args) {
+        // boundaries
+        check(Indices.type(new int[0]) == GL_UNSIGNED_BYTE, "empty");
+        check(Indices.type(new int[]{0, 0xff}) == GL_UNSIGNED_BYTE, "0xff");
+        check(Indices.type(new int[]{0x100}) == GL_UNSIGNED_SHORT, "0x100");
+        check(Indices.type(new int[]{0xffff, 3}) == GL_UNSIGNED_SHORT, "0xffff");
+        check(Indices.type(new int[]{0x10000}) == GL_UNSIGNED_INT, "0x10000");
+        // negative indices are unsigned, so they need all bits
+        check(Indices.type(new int[]{1, -1}) == GL_UNSIGNED_INT, "negative");
+        check(Indices.type(Integer.MIN_VALUE) == GL_UNSIGNED_INT, "min value");
+        check(Indices.bytes(GL_UNSIGNED_BYTE) == 1, "byte size");
+        check(Indices.bytes(GL_UNSIGNED_SHORT) == 2, "short size");
+        check(Indices.bytes(GL_UNSIGNED_INT) == 4, "int size");
+
+        // packed output
+        ByteBuffer b = narrow(new int[]{0, 1, 0x7f, 0xff}, GL_UNSIGNED_BYTE);
+        check(b.get(0) == 0 && b.get(1) == 1 && b.get(2) == 0x7f
+            && (b.get(3) & 0xff) == 0xff, "packed bytes");
+        b = narrow(new int[]{0x100, 0xffff}, GL_UNSIGNED_SHORT);
+        check((b.getShort(0) & 0xffff) == 0x100
+            && (b.getShort(2) & 0xffff) == 0xffff, "packed shorts");
+        check(b.get(0) == 0 && b.get(1) == 1, "short byte order");
+        b = narrow(new int[]{0x10000, -1}, GL_UNSIGNED_INT);
+        check(b.getInt(0) == 0x10000 && b.getInt(4) == -1, "packed ints");
+
+        // the position moves past the written indices
+        ByteBuffer offset = ByteBuffer.allocate(9).order(ByteOrder.LITTLE_ENDIAN);
+        offset.put((byte) 42);
+        Indices.narrow(new int[]{7, 8}, GL_UNSIGNED_INT, offset);
+        check(offset.position() == 9 && offset.getInt(1) == 7 && offset.getInt(5) == 8, "int position");
+
+        try {
+            Indices.bytes(GL_FLOAT);
+            throw new AssertionError("unsupported type");
+        } catch (IllegalArgumentException ignore) {
+        }
+
+        System.out.println("IndicesTest passed");
+    }
+}
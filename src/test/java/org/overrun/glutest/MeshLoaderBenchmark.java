@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.overrun.glutils.mesh.MeshFile;
+import org.overrun.glutils.mesh.MeshLoader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measure how fast {@link MeshLoader#loadf} parses a generated mesh of
+ * several megabytes, without GL.
+ * <p>
+ * The mesh has colored, textured vertices, faces and lines that use
+ * macros, so both the fast path and the macro path are timed.
+ * </p>
+ *
+ * @author squid233
+ */
+public class MeshLoaderBenchmark {
+    private static final int QUADS = 40_000;
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 10;
+    private static final String FILE = "benchmark.mesh";
+
+    private static void generate(Path file) throws IOException {
+        Random random = new Random(42);
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("set colors 4\n");
+            w.write("define size 0.5\n");
+            w.write("repeat white 4 1.0 1.0 1.0 1.0\n");
+            for (int q = 0; q < QUADS; q++) {
+                w.write("# quad " + q + "\n");
+                for (int i = 0; i < 4; i++) {
+                    if ((q & 7) == 0) {
+                        w.write("v " + random.nextFloat() + " size " + -random.nextFloat() + "\n");
+                    } else {
+                        w.write("v " + random.nextFloat() * 100 + " "
+                            + random.nextFloat() * 100 + " "
+                            + random.nextFloat() * -100 + "\n");
+                    }
+                    w.write("vt " + (i & 1) + " " + (i >> 1) + "\n");
+                }
+                if ((q & 1) == 0) {
+                    w.write("vc white\n");
+                } else {
+                    for (int i = 0; i < 4; i++) {
+                        w.write("vc " + random.nextFloat() + " " + random.nextFloat() + " "
+                            + random.nextFloat() + " 1.0\n");
+                    }
+                }
+                int v = q * 4;
+                w.write("f " + v + " " + (v + 1) + " " + (v + 2) + " "
+                    + (v + 2) + " " + (v + 3) + " " + v + "\n");
+            }
+            w.write("undef size\n");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("glutils-mesh");
+        Path file = dir.resolve(FILE);
+        try {
+            generate(file);
+            double megabytes = Files.size(file) / (1024.0 * 1024.0);
+            System.out.printf("%s: %.1f MB%n", FILE, megabytes);
+            try (URLClassLoader cl = new URLClassLoader(new java.net.URL[]{dir.toUri().toURL()}, null)) {
+                MeshFile mf = null;
+                for (int i = 0; i < WARMUP; i++) {
+                    mf = MeshLoader.loadf(cl, FILE);
+                }
+                long best = Long.MAX_VALUE, total = 0;
+                for (int i = 0; i < ROUNDS; i++) {
+                    long start = System.nanoTime();
+                    mf = MeshLoader.loadf(cl, FILE);
+                    long time = System.nanoTime() - start;
+                    best = Math.min(best, time);
+                    total += time;
+                }
+                System.out.printf("loadf: best %.1f ms, mean %.1f ms, %.1f MB/s%n",
+                    best * 1e-6,
+                    total * 1e-6 / ROUNDS,
+                    megabytes / (best * 1e-9));
+                if (mf.vertices.size() != QUADS * 4 * 3 || mf.indices.size() != QUADS * 6) {
+                    throw new AssertionError("Wrong vertex or index count");
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.overrun.glutils.mesh.MeshSimplifier;
+
+import java.util.Random;
+
+/**
+ * Check the levels of {@link MeshSimplifier} without GL.
+ *
+ * @author squid233
+ */
+public class MeshSimplifierTest {
+    private static final int RINGS = 24;
+    private static final int SEGMENTS = 48;
+    private static final int GRID = 40;
+
+    private static void check(boolean b, String msg) {
+        if (!b) {
+            throw new AssertionError(msg);
+        }
+    }
+
+    private static void checkThrows(Runnable r, String msg) {
+        try {
+            r.run();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError(msg);
+    }
+
+    /**
+     * A closed sphere with poles and a texture seam at the first column,
+     * which is duplicated as the last column.
+     */
+    private static float[] spherePositions() {
+        int cols = SEGMENTS + 1;
+        float[] p = new float[(2 + (RINGS - 1) * cols) * 3];
+        p[1] = 1;
+        p[4] = -1;
+        int i = 6;
+        for (int r = 1; r < RINGS; r++) {
+            double phi = Math.PI * r / RINGS;
+            for (int s = 0; s < cols; s++) {
+                double theta = 2 * Math.PI * (s % SEGMENTS) / SEGMENTS;
+                p[i++] = (float) (Math.sin(phi) * Math.cos(theta));
+                p[i++] = (float) Math.cos(phi);
+                p[i++] = (float) (Math.sin(phi) * Math.sin(theta));
+            }
+        }
+        return p;
+    }
+
+    private static int sphereVertex(int r, int s) {
+        return 2 + (r - 1) * (SEGMENTS + 1) + s;
+    }
+
+    private static int[] sphereIndices() {
+        int[] indices = new int[SEGMENTS * 6 + (RINGS - 2) * SEGMENTS * 6];
+        int i = 0;
+        for (int s = 0; s < SEGMENTS; s++) {
+            indices[i++] = 0;
+            indices[i++] = sphereVertex(1, s + 1);
+            indices[i++] = sphereVertex(1, s);
+            indices[i++] = 1;
+            indices[i++] = sphereVertex(RINGS - 1, s);
+            indices[i++] = sphereVertex(RINGS - 1, s + 1);
+        }
+        for (int r = 1; r < RINGS - 1; r++) {
+            for (int s = 0; s < SEGMENTS; s++) {
+                int a = sphereVertex(r, s), b = sphereVertex(r, s + 1);
+                int c = sphereVertex(r + 1, s), d = sphereVertex(r + 1, s + 1);
+                indices[i++] = a;
+                indices[i++] = b;
+                indices[i++] = c;
+                indices[i++] = b;
+                indices[i++] = d;
+                indices[i++] = c;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * An open bumpy grid, with borders on all 4 sides.
+     */
+    private static float[] gridPositions() {
+        Random random = new Random(42);
+        float[] p = new float[GRID * GRID * 3];
+        for (int z = 0, i = 0; z < GRID; z++) {
+            for (int x = 0; x < GRID; x++) {
+                p[i++] = x;
+                p[i++] = (float) (Math.sin(x * 0.3) * Math.cos(z * 0.2)) + random.nextFloat() * 0.05f;
+                p[i++] = z;
+            }
+        }
+        return p;
+    }
+
+    private static int[] gridIndices() {
+        int[] indices = new int[(GRID - 1) * (GRID - 1) * 6];
+        int i = 0;
+        for (int z = 0; z < GRID - 1; z++) {
+            for (int x = 0; x < GRID - 1; x++) {
+                int a = z * GRID + x, b = a + 1, c = a + GRID, d = c + 1;
+                indices[i++] = a;
+                indices[i++] = c;
+                indices[i++] = b;
+                indices[i++] = b;
+                indices[i++] = c;
+                indices[i++] = d;
+            }
+        }
+        return indices;
+    }
+
+    private static double segment(double[] p, double[] a, double[] b) {
+        double[] ab = sub(b, a), ap = sub(p, a);
+        double len = dot(ab, ab);
+        double t = len == 0 ? 0 : Math.max(0, Math.min(1, dot(ap, ab) / len));
+        double[] d = {ap[0] - ab[0] * t, ap[1] - ab[1] * t, ap[2] - ab[2] * t};
+        return Math.sqrt(dot(d, d));
+    }
+
+    private static double[] sub(double[] a, double[] b) {
+        return new double[]{a[0] - b[0], a[1] - b[1], a[2] - b[2]};
+    }
+
+    private static double dot(double[] a, double[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    private static double[] cross(double[] a, double[] b) {
+        return new double[]{
+            a[1] * b[2] - a[2] * b[1],
+            a[2] * b[0] - a[0] * b[2],
+            a[0] * b[1] - a[1] * b[0]
+        };
+    }
+
+    private static double[] vertex(float[] positions, int v) {
+        return new double[]{positions[v * 3], positions[v * 3 + 1], positions[v * 3 + 2]};
+    }
+
+    /**
+     * The distance from p to a triangle: the plane distance if the projection
+     * is inside, otherwise the distance to the nearest edge.
+     */
+    private static double triangle(double[] p, double[] a, double[] b, double[] c) {
+        double[] n = cross(sub(b, a), sub(c, a));
+        double len = Math.sqrt(dot(n, n));
+        if (len > 0) {
+            double[] ap = sub(p, a);
+            if (dot(cross(sub(b, a), ap), n) >= 0
+                && dot(cross(sub(c, b), sub(p, b)), n) >= 0
+                && dot(cross(sub(a, c), sub(p, c)), n) >= 0) {
+                return Math.abs(dot(ap, n)) / len;
+            }
+        }
+        return Math.min(segment(p, a, b), Math.min(segment(p, b, c), segment(p, c, a)));
+    }
+
+    /**
+     * The max distance from the vertices of the full mesh to the surface of a level.
+     */
+    private static double distance(int[] full, int[] level, float[] positions) {
+        boolean[] used = new boolean[positions.length / 3];
+        for (int i : full) {
+            used[i] = true;
+        }
+        double max = 0;
+        for (int v = 0; v < used.length; v++) {
+            if (!used[v]) {
+                continue;
+            }
+            double[] p = vertex(positions, v);
+            double min = Double.MAX_VALUE;
+            for (int t = 0; t < level.length; t += 3) {
+                min = Math.min(min, triangle(p,
+                    vertex(positions, level[t]),
+                    vertex(positions, level[t + 1]),
+                    vertex(positions, level[t + 2])));
+            }
+            max = Math.max(max, min);
+        }
+        return max;
+    }
+
+    private static void checkLevels(String name, int[] indices, float[] positions, int[] locked) {
+        int levels = 5;
+        MeshSimplifier.Level[] lods = MeshSimplifier.generateLods(indices, positions, 3, levels, 0.5f);
+        check(lods.length == levels, name + ": level count");
+        check(lods[0].indices == indices && lods[0].error == 0, name + ": level 0 is the full mesh");
+        float target = indices.length;
+        for (int i = 1; i < levels; i++) {
+            MeshSimplifier.Level lod = lods[i];
+            target *= 0.5f;
+            int count = (int) target / 3 * 3;
+            int length = lod.indices.length;
+            check(length % 3 == 0, name + ": level " + i + " is not a triangle list");
+            check(length <= lods[i - 1].indices.length, name + ": level " + i + " grows");
+            // a level above the target must be one that cannot be simplified any more
+            check(length <= count
+                    || MeshSimplifier.simplify(lod.indices, positions, 3, count, Float.MAX_VALUE).indices.length == length,
+                name + ": level " + i + " has " + length + " indices and stops above the target " + count);
+            double real = distance(indices, lod.indices, positions);
+            check(real <= lod.error * (1 + 1e-5) + 1e-6,
+                name + ": level " + i + " error " + lod.error + " is below the real distance " + real);
+            boolean[] referenced = new boolean[positions.length / 3];
+            for (int v : lod.indices) {
+                referenced[v] = true;
+            }
+            for (int v : locked) {
+                check(referenced[v], name + ": level " + i + " moved the locked vertex " + v);
+            }
+            System.out.printf("%s level %d: %d indices (target %d), error %.5f >= %.5f%n",
+                name, i, length, count, lod.error, real);
+        }
+        check(lods[levels - 1].indices.length < indices.length / 4, name + ": too few collapses");
+    }
+
+    public static void main(String[] args) {
+        int[] sphere = sphereIndices();
+        float[] spherePos = spherePositions();
+        int[] seam = new int[(RINGS - 1) * 2];
+        for (int r = 1; r < RINGS; r++) {
+            seam[(r - 1) * 2] = sphereVertex(r, 0);
+            seam[(r - 1) * 2 + 1] = sphereVertex(r, SEGMENTS);
+        }
+        checkLevels("sphere", sphere, spherePos, seam);
+
+        int[] grid = gridIndices();
+        float[] gridPos = gridPositions();
+        int[] border = new int[(GRID - 1) * 4];
+        for (int j = 0, i = 0; j < GRID - 1; j++) {
+            border[i++] = j;
+            border[i++] = GRID * (GRID - 1) + j + 1;
+            border[i++] = j * GRID + GRID - 1;
+            border[i++] = (j + 1) * GRID;
+        }
+        checkLevels("grid", grid, gridPos, border);
+
+        checkThrows(() -> MeshSimplifier.generateLods(sphere, spherePos, 3, 0, 0.5f), "levels 0");
+        checkThrows(() -> MeshSimplifier.generateLods(sphere, spherePos, 3, 2, 0), "ratio 0");
+        checkThrows(() -> MeshSimplifier.generateLods(sphere, spherePos, 3, 2, 1), "ratio 1");
+        checkThrows(() -> MeshSimplifier.generateLods(sphere, spherePos, 3, 2, Float.NaN), "ratio NaN");
+        check(MeshSimplifier.generateLods(sphere, spherePos, 3, 1, 0.5f).length == 1, "levels 1");
+        System.out.println("MeshSimplifierTest passed");
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.overrun.glutils.RangeAllocator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Check {@link RangeAllocator} without GL.
+ *
+ * @author squid233
+ */
+public class RangeAllocatorTest {
+    private static void check(boolean b, String msg) {
+        if (!b) {
+            throw new AssertionError(msg);
+        }
+    }
+
+    public static void main(String[] args) {
+        // layout: a[0,10) b[10,14) c[14,20) d[20,28) e[28,30) f[30,40)
+        RangeAllocator al = new RangeAllocator(100);
+        RangeAllocator.Range a = al.allocate(10);
+        RangeAllocator.Range b = al.allocate(4);
+        RangeAllocator.Range c = al.allocate(6);
+        RangeAllocator.Range d = al.allocate(8);
+        RangeAllocator.Range e = al.allocate(2);
+        RangeAllocator.Range f = al.allocate(10);
+        check(f.getOffset() == 30 && al.getUsed() == 40, "sequential allocation");
+
+        // free blocks of 4 at 10, 8 at 20 and 60 at 40
+        al.free(b);
+        al.free(d);
+        check(b.isFreed() && al.getFreeBlockCount() == 3, "free blocks");
+        // best fit: the smallest block that fits
+        RangeAllocator.Range g = al.allocate(3);
+        check(g.getOffset() == 10, "best fit small");
+        RangeAllocator.Range h = al.allocate(5);
+        check(h.getOffset() == 20, "best fit middle");
+        check(al.allocate(61) == null, "too large");
+        check(al.getLargestFree() == 60, "largest free");
+
+        // coalescing: freeing c joins the free neighbours [13,14) and [25,28)
+        al.free(h);
+        al.free(c);
+        check(al.getFreeBlockCount() == 2, "coalesced count");
+        RangeAllocator.Range i = al.allocate(15);
+        check(i.getOffset() == 13, "coalesced block");
+        al.free(i);
+
+        // grow merges with the free block at the end
+        al.grow(150);
+        check(al.getCapacity() == 150 && al.getLargestFree() == 110, "grow");
+        check(al.getEnd() == 40, "end");
+        RangeAllocator.Range j = al.allocate(110);
+        check(j.getOffset() == 40, "allocate grown block");
+        al.free(j);
+
+        // defragment packs the ranges in order of offset
+        List<int[]> moves = new ArrayList<>();
+        int moved = al.defragment((from, to, size) -> moves.add(new int[]{from, to, size}));
+        // a[0,10) g[10,13) e[28,30) f[30,40)
+        check(moves.size() == 4, "defragment reports every range");
+        check(moved == 2, "moved count");
+        check(a.getOffset() == 0 && g.getOffset() == 10
+            && e.getOffset() == 13 && f.getOffset() == 15, "offsets after defragment");
+        int[] move = moves.get(2);
+        check(move[0] == 28 && move[1] == 13 && move[2] == 2, "move of e");
+        check(al.getFreeBlockCount() == 1 && al.getEnd() == 25
+            && al.getLargestFree() == 125, "one free block");
+
+        try {
+            al.free(b);
+            throw new AssertionError("double free");
+        } catch (IllegalArgumentException ignore) {
+        }
+        try {
+            al.allocate(0);
+            throw new AssertionError("empty range");
+        } catch (IllegalArgumentException ignore) {
+        }
+
+        System.out.println("RangeAllocatorTest passed");
+    }
+}
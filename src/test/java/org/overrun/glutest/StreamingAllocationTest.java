@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.lwjgl.glfw.GLFWErrorCallback;
+import org.lwjgl.opengl.GL;
+import org.overrun.glutils.mesh.Mesh3VertexBuilder;
+
+import java.lang.management.ManagementFactory;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.system.MemoryUtil.NULL;
+
+/**
+ * Check that rebuilding a {@link Mesh3VertexBuilder} every frame allocates
+ * no heap memory once its buffers are large enough.
+ * <p>
+ * The heap bytes allocated by this thread are counted per frame, which is
+ * what JMH reports as {@code gc.alloc.rate.norm} with {@code -prof gc}.
+ * A hidden window provides the GL context.
+ * </p>
+ *
+ * @author squid233
+ */
+public class StreamingAllocationTest {
+    private static final int QUADS = 20_000;
+    private static final int WARMUP = 200;
+    private static final int FRAMES = 2000;
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void frame(Mesh3VertexBuilder builder, int frame) {
+        float z = frame & 15;
+        for (int i = 0; i < QUADS; i++) {
+            float x = i % 100, y = i / 100f;
+            builder.color(1, 1, 1, 1).texture(0, 0).vertex(x, y, z);
+            builder.color(1, 1, 1, 1).texture(1, 0).vertex(x + 1, y, z);
+            builder.color(1, 1, 1, 1).texture(1, 1).vertex(x + 1, y + 1, z);
+            builder.color(1, 1, 1, 1).texture(0, 1).vertex(x, y + 1, z);
+        }
+        builder.render(GL_POINTS);
+    }
+
+    public static void main(String[] args) {
+        GLFWErrorCallback.createPrint().set();
+        if (!glfwInit()) {
+            throw new IllegalStateException("Unable to initialize GLFW");
+        }
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
+        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
+        long window = glfwCreateWindow(64, 64, "StreamingAllocationTest", NULL, NULL);
+        if (window == NULL) {
+            throw new IllegalStateException("Failed to create the GLFW window");
+        }
+        glfwMakeContextCurrent(window);
+        GL.createCapabilities();
+
+        try (Mesh3VertexBuilder builder = new Mesh3VertexBuilder()) {
+            for (int i = 0; i < WARMUP; i++) {
+                frame(builder, i);
+            }
+            // reading the counter may allocate itself
+            long probe = allocated();
+            long overhead = allocated() - probe;
+            long start = allocated();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < FRAMES; i++) {
+                frame(builder, i);
+            }
+            long time = System.nanoTime() - startTime;
+            long bytes = allocated() - start - overhead;
+            System.out.printf("%d frames of %d vertices: %.3f ms/frame, %.2f B/frame allocated%n",
+                FRAMES,
+                QUADS * 4,
+                time * 1e-6 / FRAMES,
+                (double) bytes / FRAMES);
+            if (bytes > 0) {
+                throw new AssertionError("The steady state allocated " + bytes + " bytes");
+            }
+        } finally {
+            glfwDestroyWindow(window);
+            glfwTerminate();
+            glfwSetErrorCallback(null).free();
+        }
+        System.out.println("StreamingAllocationTest passed");
+    }
+}
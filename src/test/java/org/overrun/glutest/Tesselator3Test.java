@@ -63,11 +63,11 @@ public class Tesselator3Test extends Game {
         public void render() {
             it.setMatrix(mat2d);
             it.init()
+                .quads()
                 .color(0, 0, 0, 0.5f).vertex(0, 0, 0)
                 .color(0, 0, 0, 0.5f).vertex(0, height, 0)
                 .color(0, 0, 0, 0.5f).vertex(width, height, 0)
                 .color(0, 0, 0, 0.5f).vertex(width, 0, 0)
-                .indices(0, 1, 2, 2, 3, 0)
                 .draw();
             super.render();
         }
@@ -241,6 +241,8 @@ public class Tesselator3Test extends Game {
         sth.free();
         it.free();
         t.free();
+        Tesselator3.freePrograms();
+        IndexedTesselator3.freeQuadIndices();
     }
 
     public static void main(final String[] args) {
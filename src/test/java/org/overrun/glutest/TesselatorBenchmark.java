@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.joml.Matrix4f;
+import org.lwjgl.glfw.GLFWErrorCallback;
+import org.lwjgl.opengl.GL;
+import org.overrun.glutils.Tesselator3;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Measure the vertices per second that {@link Tesselator3} writes into its
+ * native buffer, against the old path that staged the vertices in a heap
+ * array and copied them to a native buffer.
+ * <p>
+ * Only the writes are timed; the uploads and draws run outside the timer.
+ * A hidden window provides the GL context.
+ * </p>
+ *
+ * @author squid233
+ */
+public class TesselatorBenchmark {
+    private static final int VERTICES = 300_000;
+    private static final int WARMUP = 50;
+    private static final int ROUNDS = 200;
+    private static float sink;
+
+    private static void report(String name, long nanos) {
+        System.out.printf("%-32s %8.1f M vertices/s%n",
+            name,
+            (double) VERTICES * ROUNDS / nanos * 1e3);
+    }
+
+    private static long tesselator(Tesselator3 t, int rounds) {
+        long total = 0;
+        for (int r = 0; r < rounds; r++) {
+            t.init(GL_TRIANGLES);
+            long start = System.nanoTime();
+            for (int i = 0; i < VERTICES; i++) {
+                t.color(1, i & 1, 0.5f, 1)
+                    .tex(i & 1, i >> 1 & 1)
+                    .vertex(i, i + 1, r);
+            }
+            total += System.nanoTime() - start;
+            t.draw(GL_TRIANGLES);
+        }
+        glFinish();
+        return total;
+    }
+
+    /**
+     * The old path: a branch per attribute per vertex into a heap array,
+     * then a copy of the array into the native buffer.
+     */
+    private static long staged(float[] array, FloatBuffer buffer, int rounds) {
+        long total = 0;
+        boolean hasColor = true, hasTexture = true;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            int pos = 0;
+            for (int i = 0; i < VERTICES; i++) {
+                array[pos++] = i;
+                array[pos++] = i + 1;
+                array[pos++] = r;
+                if (hasColor) {
+                    array[pos++] = 1;
+                    array[pos++] = i & 1;
+                    array[pos++] = 0.5f;
+                    array[pos++] = 1;
+                }
+                if (hasTexture) {
+                    array[pos++] = i & 1;
+                    array[pos++] = i >> 1 & 1;
+                }
+            }
+            buffer.clear();
+            buffer.put(array, 0, pos);
+            total += System.nanoTime() - start;
+            sink += buffer.get(r % pos);
+        }
+        return total;
+    }
+
+    public static void main(String[] args) {
+        GLFWErrorCallback.createPrint().set();
+        if (!glfwInit()) {
+            throw new IllegalStateException("Unable to initialize GLFW");
+        }
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
+        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
+        long window = glfwCreateWindow(64, 64, "TesselatorBenchmark", NULL, NULL);
+        if (window == NULL) {
+            throw new IllegalStateException("Failed to create the GLFW window");
+        }
+        glfwMakeContextCurrent(window);
+        GL.createCapabilities();
+
+        Tesselator3 t = new Tesselator3(false, VERTICES);
+        t.setMatrix(new Matrix4f());
+        tesselator(t, WARMUP);
+        report("Tesselator3, direct writes", tesselator(t, ROUNDS));
+        t.free();
+
+        float[] array = new float[VERTICES * Tesselator3.VERTEX_SIZE];
+        FloatBuffer buffer = memAllocFloat(array.length);
+        staged(array, buffer, WARMUP);
+        report("heap array staging (old path)", staged(array, buffer, ROUNDS));
+        memFree(buffer);
+        System.out.println("(sink " + sink + ")");
+
+        Tesselator3.freePrograms();
+        glfwDestroyWindow(window);
+        glfwTerminate();
+        glfwSetErrorCallback(null).free();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.overrun.glutils.VertexFormat;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Measure the throughput of the specialized {@link VertexFormat} writers
+ * without GL, against the old per-vertex branches on the enabled
+ * attributes.
+ *
+ * @author squid233
+ */
+public class VertexFormatBenchmark {
+    private static final int VERTICES = 1_000_000;
+    private static final int WARMUP = 30;
+    private static final int ROUNDS = 100;
+    private static float sink;
+
+    /**
+     * The old path: floats only, with a branch per attribute per vertex.
+     */
+    private static void branching(long address,
+                                  boolean hasColor,
+                                  boolean hasTexture,
+                                  float x, float y, float z,
+                                  float r, float g, float b, float a,
+                                  float u, float v) {
+        memPutFloat(address, x);
+        memPutFloat(address + 4, y);
+        memPutFloat(address + 8, z);
+        address += 12;
+        if (hasColor) {
+            memPutFloat(address, r);
+            memPutFloat(address + 4, g);
+            memPutFloat(address + 8, b);
+            memPutFloat(address + 12, a);
+            address += 16;
+        }
+        if (hasTexture) {
+            memPutFloat(address, u);
+            memPutFloat(address + 4, v);
+        }
+    }
+
+    private static long runBranching(long address, boolean hasColor, boolean hasTexture, int rounds) {
+        int stride = 12 + (hasColor ? 16 : 0) + (hasTexture ? 8 : 0);
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            long p = address;
+            for (int i = 0; i < VERTICES; i++, p += stride) {
+                branching(p, hasColor, hasTexture,
+                    i, i + 1, r,
+                    1, (i & 255) / 255f, 0.5f, 1,
+                    (i & 1), (i >> 1 & 1));
+            }
+            sink += memGetFloat(address + (long) (r % VERTICES) * stride);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runWriter(long address, VertexFormat format, int rounds) {
+        VertexFormat.VertexWriter writer = format.getWriter();
+        int stride = format.getStride();
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            long p = address;
+            for (int i = 0; i < VERTICES; i++, p += stride) {
+                writer.put(p,
+                    i, i + 1, r,
+                    1, (i & 255) / 255f, 0.5f, 1,
+                    (i & 1), (i >> 1 & 1),
+                    0, 0, 0);
+            }
+            sink += memGetByte(address + (long) (r % VERTICES) * stride);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, int stride, long nanos) {
+        double seconds = nanos * 1e-9;
+        System.out.printf("%-40s %2d B/vertex %8.1f M vertices/s %8.1f MB/s%n",
+            name,
+            stride,
+            (double) VERTICES * ROUNDS / seconds * 1e-6,
+            (double) VERTICES * ROUNDS * stride / seconds * 1e-6);
+    }
+
+    private static void writer(String name, long address, VertexFormat format) {
+        runWriter(address, format, WARMUP);
+        report(name, format.getStride(), runWriter(address, format, ROUNDS));
+    }
+
+    public static void main(String[] args) {
+        ByteBuffer buffer = memAlloc(VERTICES * 36);
+        long address = memAddress(buffer);
+
+        runBranching(address, true, true, WARMUP);
+        report("branching floats, color + tex (old path)", 36, runBranching(address, true, true, ROUNDS));
+        runBranching(address, false, true, WARMUP);
+        report("branching floats, tex (old path)", 20, runBranching(address, false, true, ROUNDS));
+
+        writer("writer floats, color + tex", address, VertexFormat.POSITION_COLOR_TEX);
+        writer("writer floats, tex", address, VertexFormat.POSITION_TEX);
+        writer("writer packed color + tex", address, VertexFormat.builder()
+            .position(GL_FLOAT)
+            .color(GL_UNSIGNED_BYTE)
+            .texCoord(GL_UNSIGNED_SHORT)
+            .build());
+        writer("writer half position, packed color + tex", address, VertexFormat.builder()
+            .position(GL_HALF_FLOAT)
+            .color(GL_UNSIGNED_BYTE)
+            .texCoord(GL_UNSIGNED_SHORT)
+            .build());
+
+        memFree(buffer);
+        System.out.println("(sink " + sink + ")");
+    }
+}
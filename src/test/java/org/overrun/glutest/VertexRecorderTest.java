@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.overrun.glutils.RecordedBatch;
+import org.overrun.glutils.VertexRecorder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL11.GL_QUADS;
+
+/**
+ * Check the recording side of {@link VertexRecorder} without GL.
+ *
+ * @author squid233
+ */
+public class VertexRecorderTest {
+    private static void check(boolean b, String msg) {
+        if (!b) {
+            throw new AssertionError(msg);
+        }
+    }
+
+    private static void expectIllegalState(Runnable r, String msg) {
+        try {
+            r.run();
+        } catch (IllegalStateException e) {
+            return;
+        }
+        throw new AssertionError(msg);
+    }
+
+    public static void main(String[] args) {
+        VertexRecorder rec = VertexRecorder.get();
+        rec.init()
+            .color(1, 0, 0, 1).tex(0, 0).vertex(0, 0, 0)
+            .color(0, 1, 0, 1).tex(0, 1).vertex(0, 1, 0)
+            .color(0, 0, 1, 1).tex(1, 1).vertex(1, 1, 0)
+            .color(1, 1, 1, 1).tex(1, 0).vertex(1, 0, 0)
+            .draw(GL_QUADS);
+        List<RecordedBatch> batches = rec.finish();
+        check(batches.size() == 1, "batch count");
+        RecordedBatch batch = batches.get(0);
+        check(batch.getStride() == 9, "stride");
+        check(batch.getData().length == 4 * 9, "data length");
+        // the batch hands out copies
+        float[] data = batch.getData();
+        data[0] = Float.NaN;
+        check(!Float.isNaN(batch.getData()[0]), "data is copied");
+
+        // replaying gives the same batch
+        rec.init();
+        batch.replay(rec);
+        rec.draw(GL_QUADS);
+        RecordedBatch replayed = rec.finish().get(0);
+        check(replayed.getVertexCount() == 4, "replayed vertex count");
+        check(Arrays.equals(batch.getData(), replayed.getData()), "replayed data");
+
+        // the layout is locked at the first vertex
+        expectIllegalState(() -> rec.init().vertex(0, 0, 0).color(1, 1, 1, 1),
+            "color after the first vertex");
+        expectIllegalState(() -> rec.init().color(1, 1, 1, 1).vertex(0, 0, 0).tex(0, 0),
+            "tex after the first vertex");
+        rec.free();
+
+        System.out.println("VertexRecorderTest passed");
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Overrun Organization
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package org.overrun.glutest;
+
+import org.overrun.glutils.mesh.VertexWelder;
+
+/**
+ * Check the vertex keys of {@link VertexWelder} without GL.
+ *
+ * @author squid233
+ */
+public class VertexWelderTest {
+    private static void check(boolean b, String msg) {
+        if (!b) {
+            throw new AssertionError(msg);
+        }
+    }
+
+    private static int unique(float epsilon, float... xs) {
+        return VertexWelder.weld(new float[][]{xs},
+            new int[]{1},
+            xs.length,
+            null,
+            epsilon).vertexCount;
+    }
+
+    public static void main(String[] args) {
+        for (float epsilon : new float[]{0, 1e-6f, 1e-3f}) {
+            // large coordinates stay distinct
+            check(unique(epsilon, 3000, 3001, 1e7f, 1e7f + 1, 1e20f, 1.0000001e20f,
+                -3000, -1e20f) == 8, "large coordinates, epsilon " + epsilon);
+            check(unique(epsilon, Float.MAX_VALUE, -Float.MAX_VALUE,
+                Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY) == 4,
+                "extreme values, epsilon " + epsilon);
+            // -0.0 equals 0.0
+            check(unique(epsilon, 0.0f, -0.0f) == 1, "-0.0, epsilon " + epsilon);
+            // NaNs are equal to each other but not to numbers
+            check(unique(epsilon, Float.NaN, Float.intBitsToFloat(0x7fc00001), 0) == 2,
+                "NaN, epsilon " + epsilon);
+        }
+        // vertices in a grid cell are merged
+        check(unique(1e-3f, 0.5001f, 0.5002f, 0.6f) == 2, "grid cell");
+        check(unique(1e-6f, 3000.0f, 3000.0f, 3000.0002f) == 2, "grid cell at 3000");
+
+        // indices are remapped to the unique vertices
+        VertexWelder.Result r = VertexWelder.weld(new float[][]{{1, 2, 1, 3}},
+            new int[]{1},
+            4,
+            new int[]{0, 1, 2, 3, 2},
+            0);
+        check(r.vertexCount == 3, "indexed count");
+        check(r.indices[2] == r.indices[0] && r.indices[4] == r.indices[0]
+            && r.indices[3] == 2, "indexed remap");
+
+        for (float epsilon : new float[]{Float.NaN, Float.MIN_VALUE}) {
+            try {
+                unique(epsilon, 1);
+                throw new AssertionError("invalid epsilon " + epsilon);
+            } catch (IllegalArgumentException ignore) {
+            }
+        }
+
+        System.out.println("VertexWelderTest passed");
+    }
+}